@@ -0,0 +1,65 @@
+package android.graphics;
+
+/**
+ * JVM shadow of the Android Bitmap used by the benchmarks. It only carries the
+ * dimensions and config the caches use to size entries; no pixels are
+ * allocated.
+ */
+public final class Bitmap {
+
+	public enum Config {
+		ALPHA_8(1), RGB_565(2), ARGB_4444(2), ARGB_8888(4);
+
+		final int bytesPerPixel;
+
+		Config(int bytesPerPixel) {
+			this.bytesPerPixel = bytesPerPixel;
+		}
+	}
+
+	private final int width;
+	private final int height;
+	private final Config config;
+
+	private Bitmap(int width, int height, Config config) {
+		this.width = width;
+		this.height = height;
+		this.config = config;
+	}
+
+	public static Bitmap createBitmap(int width, int height, Config config) {
+		return new Bitmap(width, height, config);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public Config getConfig() {
+		return config;
+	}
+
+	public int getRowBytes() {
+		return width * config.bytesPerPixel;
+	}
+
+	public int getByteCount() {
+		return getRowBytes() * height;
+	}
+
+	public boolean isMutable() {
+		return true;
+	}
+
+	public boolean isRecycled() {
+		return false;
+	}
+
+	public void recycle() {
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.aaron.imageloader.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+
+import com.aaron.imageloader.EvictionPolicy;
+import com.aaron.imageloader.LruPolicy;
+import com.aaron.imageloader.SegmentedLruPolicy;
+import com.aaron.imageloader.TinyLfuPolicy;
+
+/**
+ * 回放访问记录，计算移除策略的命中率，不依赖Android环境，可以直接在JVM上运行
+ * 
+ * <p>
+ * 访问记录每行一次访问，格式为"key"或"key 大小"，没有大小时按1计算
+ * 
+ * <pre>
+ * java -cp target/benchmarks.jar com.aaron.imageloader.benchmark.CacheTraceReplayer access.log 1000
+ * </pre>
+ * 
+ * @author Aaron
+ * 
+ */
+public class CacheTraceReplayer {
+
+	private final EvictionPolicy<String> policy;
+
+	private final long maxSize;
+
+	/**
+	 * 缓存中的key和大小
+	 */
+	private final HashMap<String, Integer> cache = new HashMap<String, Integer>();
+
+	private long currentSize;
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long rejectCount;
+
+	public CacheTraceReplayer(EvictionPolicy<String> policy, long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.policy = policy;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 回放一次访问，未命中时按缓存的方式放入
+	 * 
+	 * @param key
+	 * @param size
+	 * @return 是否命中
+	 */
+	public boolean access(String key, int size) {
+		policy.onAccess(key);
+		if (cache.containsKey(key)) {
+			hitCount++;
+			return true;
+		}
+		missCount++;
+		if (size > maxSize) {
+			rejectCount++;
+			return false;
+		}
+		boolean admitted = false;
+		while (currentSize + size > maxSize) {
+			String victim = policy.victim();
+			if (victim == null) {
+				break;
+			}
+			if (!admitted) {
+				if (!policy.admit(key, victim)) {
+					rejectCount++;
+					return false;
+				}
+				admitted = true;
+			}
+			Integer removed = cache.remove(victim);
+			policy.onRemove(victim);
+			if (removed != null) {
+				currentSize -= removed;
+			}
+		}
+		cache.put(key, size);
+		currentSize += size;
+		policy.onInsert(key, size);
+		return false;
+	}
+
+	/**
+	 * 回放访问记录
+	 * 
+	 * @param reader
+	 * @throws IOException
+	 */
+	public void replay(Reader reader) throws IOException {
+		BufferedReader in = new BufferedReader(reader);
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.length() == 0) {
+				continue;
+			}
+			int space = line.indexOf(' ');
+			if (space < 0) {
+				access(line, 1);
+			} else {
+				access(line.substring(0, space), Integer.parseInt(line.substring(space + 1).trim()));
+			}
+		}
+	}
+
+	public long hitCount() {
+		return hitCount;
+	}
+
+	public long missCount() {
+		return missCount;
+	}
+
+	public double hitRatio() {
+		long accesses = hitCount + missCount;
+		return accesses != 0 ? (double) hitCount / accesses : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + hitCount + ",misses=" + missCount + ",rejects=" + rejectCount + ",hitRatio="
+				+ String.format("%.4f", hitRatio());
+	}
+
+	/**
+	 * 使用Lru、分段Lru、TinyLfu三种策略回放同一份访问记录并输出命中率
+	 * 
+	 * @param args
+	 *            访问记录文件、缓存大小、预计缓存中的key数量(可选)
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: CacheTraceReplayer <trace file> <max size> [expected count]");
+			return;
+		}
+		String file = args[0];
+		int maxSize = Integer.parseInt(args[1]);
+		int expectedCount = args.length > 2 ? Integer.parseInt(args[2]) : maxSize;
+		int maxProtected = (int) (maxSize * 0.8f);
+
+		replay(file, "lru", new CacheTraceReplayer(new LruPolicy<String>(), maxSize));
+		replay(file, "slru", new CacheTraceReplayer(new SegmentedLruPolicy<String>(maxProtected), maxSize));
+		replay(file, "tinylfu", new CacheTraceReplayer(new TinyLfuPolicy<String>(new SegmentedLruPolicy<String>(
+				maxProtected), expectedCount), maxSize));
+	}
+
+	private static void replay(String file, String name, CacheTraceReplayer replayer) throws IOException {
+		Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+		try {
+			replayer.replay(reader);
+		} finally {
+			reader.close();
+		}
+		System.out.println(name + ": " + replayer);
+	}
+
+}
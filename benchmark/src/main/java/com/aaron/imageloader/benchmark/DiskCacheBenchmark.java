@@ -0,0 +1,116 @@
+package com.aaron.imageloader.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aaron.imageloader.KeyHasher;
+import com.aaron.imageloader.LruDiskCache;
+
+/**
+ * LruDiskCache lookups and edits on a temporary directory. Each entry is a
+ * small file so the numbers reflect the cache bookkeeping rather than disk
+ * bandwidth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiskCacheBenchmark {
+
+	private static final int ENTRY_COUNT = 1000;
+	private static final int VALUE_SIZE = 4 * 1024;
+
+	@Param({ "false", "true" })
+	public boolean binaryJournal;
+
+	private File directory;
+	private LruDiskCache diskCache;
+	private String[] keys;
+	private byte[] value;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("lrudiskcache").toFile();
+		diskCache = LruDiskCache.open(directory, 1, 1, Long.MAX_VALUE, binaryJournal);
+		value = new byte[VALUE_SIZE];
+		keys = new String[ENTRY_COUNT];
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			keys[i] = KeyHasher.hashKeyForDisk("http://img.example.com/photos/" + i + ".jpg");
+			write(keys[i]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		diskCache.delete();
+	}
+
+	@Benchmark
+	public int get() throws IOException {
+		return read(keys[ThreadLocalRandom.current().nextInt(ENTRY_COUNT)]);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public int getContended() throws IOException {
+		return read(keys[ThreadLocalRandom.current().nextInt(ENTRY_COUNT)]);
+	}
+
+	/**
+	 * Rewrites an existing entry: edit, write the value, commit.
+	 */
+	@Benchmark
+	public boolean editCommit() throws IOException {
+		return write(keys[ThreadLocalRandom.current().nextInt(ENTRY_COUNT)]);
+	}
+
+	private int read(String key) throws IOException {
+		LruDiskCache.Snapshot snapshot = diskCache.get(key);
+		if (snapshot == null) {
+			return -1;
+		}
+		try {
+			InputStream in = snapshot.getInputStream(0);
+			return in.read();
+		} finally {
+			snapshot.close();
+		}
+	}
+
+	private boolean write(String key) throws IOException {
+		LruDiskCache.Editor editor = diskCache.edit(key);
+		if (editor == null) {
+			return false;
+		}
+		OutputStream out = editor.newOutputStream(0);
+		try {
+			out.write(value);
+		} finally {
+			out.close();
+		}
+		editor.commit();
+		return true;
+	}
+
+}
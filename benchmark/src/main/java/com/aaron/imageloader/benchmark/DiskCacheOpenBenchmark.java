@@ -0,0 +1,74 @@
+package com.aaron.imageloader.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aaron.imageloader.KeyHasher;
+import com.aaron.imageloader.LruDiskCache;
+
+/**
+ * Time to open an existing LruDiskCache, which is dominated by replaying the
+ * journal, for the text and binary journal formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiskCacheOpenBenchmark {
+
+	@Param({ "1000", "10000", "40000" })
+	public int entries;
+
+	@Param({ "false", "true" })
+	public boolean binaryJournal;
+
+	private File directory;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("lrudiskcache-open").toFile();
+		LruDiskCache diskCache = LruDiskCache.open(directory, 1, 1, Long.MAX_VALUE, binaryJournal);
+		byte[] value = new byte[16];
+		for (int i = 0; i < entries; i++) {
+			LruDiskCache.Editor editor = diskCache.edit(KeyHasher.hashKeyForDisk("http://img.example.com/" + i));
+			OutputStream out = editor.newOutputStream(0);
+			out.write(value);
+			out.close();
+			editor.commit();
+		}
+		diskCache.close();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		LruDiskCache.deleteContents(directory);
+		directory.delete();
+	}
+
+	@Benchmark
+	public long open() throws IOException {
+		LruDiskCache diskCache = LruDiskCache.open(directory, 1, 1, Long.MAX_VALUE, binaryJournal);
+		long size = diskCache.size();
+		diskCache.close();
+		return size;
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.aaron.imageloader.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aaron.imageloader.KeyHasher;
+
+/**
+ * Cost of turning an image URL into a disk cache key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyHashBenchmark {
+
+	private final String url = "http://img.example.com/photos/2015/06/12/3f9c2a71d4e8b05a_large.jpg?w=720&q=80";
+
+	private final byte[] digest = { 0x3f, (byte) 0x9c, 0x2a, 0x71, (byte) 0xd4, (byte) 0xe8, (byte) 0xb0, 0x5a, 0x01,
+			0x10, 0x7f, (byte) 0x80, (byte) 0xff, 0x00, 0x42, 0x0d };
+
+	private final KeyHasher cachedHasher = new KeyHasher(KeyHasher.Algorithm.MURMUR3_128, 256);
+
+	@Benchmark
+	public String hashKeyForDisk() {
+		return KeyHasher.hashKeyForDisk(url);
+	}
+
+	@Benchmark
+	public String murmur3() {
+		return KeyHasher.murmur3(url);
+	}
+
+	/**
+	 * Repeated lookups of the same URL, as when a list rebinds visible rows.
+	 */
+	@Benchmark
+	public String cachedHash() {
+		return cachedHasher.hash(url);
+	}
+
+	@Benchmark
+	public String bytesToHexString() {
+		return KeyHasher.bytesToHexString(digest);
+	}
+
+}
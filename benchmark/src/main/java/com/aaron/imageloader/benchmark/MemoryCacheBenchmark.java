@@ -0,0 +1,89 @@
+package com.aaron.imageloader.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.Bitmap;
+
+import com.aaron.imageloader.ConcurrentLruMemoryCache;
+import com.aaron.imageloader.LruMemoryCache;
+import com.aaron.imageloader.MemoryCacheAware;
+
+/**
+ * Memory cache get/put under contention. The cache holds about half of the key
+ * space, so the mixed benchmark keeps evicting while readers hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class MemoryCacheBenchmark {
+
+	private static final int KEY_COUNT = 1024;
+	private static final int BITMAP_SIZE = 64;
+
+	@Param({ "lru", "concurrent" })
+	public String cache;
+
+	private MemoryCacheAware<String, Bitmap> memoryCache;
+	private String[] keys;
+	private Bitmap[] bitmaps;
+
+	@Setup
+	public void setUp() {
+		int bytes = BITMAP_SIZE * BITMAP_SIZE * 4;
+		int maxSize = bytes * KEY_COUNT / 2;
+		memoryCache = "lru".equals(cache) ? new LruMemoryCache(maxSize) : new ConcurrentLruMemoryCache(maxSize);
+		keys = new String[KEY_COUNT];
+		bitmaps = new Bitmap[KEY_COUNT];
+		for (int i = 0; i < KEY_COUNT; i++) {
+			keys[i] = "http://img.example.com/photos/" + i + ".jpg";
+			bitmaps[i] = Bitmap.createBitmap(BITMAP_SIZE, BITMAP_SIZE, Bitmap.Config.ARGB_8888);
+			if (i % 2 == 0) {
+				memoryCache.put(keys[i], bitmaps[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	public Bitmap get() {
+		return memoryCache.get(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+	}
+
+	@Benchmark
+	public boolean put() {
+		int i = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+		return memoryCache.put(keys[i], bitmaps[i]);
+	}
+
+	/**
+	 * Nine reads to one write, like a scrolling list that mostly redisplays
+	 * cached rows.
+	 */
+	@Benchmark
+	public Object readMostly() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int i = random.nextInt(KEY_COUNT);
+		if (random.nextInt(10) == 0) {
+			return memoryCache.put(keys[i], bitmaps[i]);
+		}
+		return memoryCache.get(keys[i]);
+	}
+
+}
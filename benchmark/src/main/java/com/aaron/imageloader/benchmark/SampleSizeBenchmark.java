@@ -0,0 +1,55 @@
+package com.aaron.imageloader.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.aaron.imageloader.DecodeSizing;
+import com.aaron.imageloader.ScaleMode;
+
+/**
+ * Sample size calculation over a spread of source and target sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleSizeBenchmark {
+
+	/**
+	 * source width, source height, target width, target height
+	 */
+	private final int[][] sizes = { { 4032, 3024, 720, 540 }, { 3024, 4032, 360, 360 }, { 1920, 1080, 1080, 1920 },
+			{ 800, 600, 1080, 1920 }, { 640, 640, 96, 96 }, { 5000, 200, 720, 120 }, { 1280, 720, 480, 270 },
+			{ 100, 100, 100, 100 } };
+
+	@Benchmark
+	public void calculateInSampleSize(Blackhole blackhole) {
+		for (int[] size : sizes) {
+			blackhole.consume(DecodeSizing.calculateInSampleSize(size[0], size[1], size[2], size[3]));
+		}
+	}
+
+	/**
+	 * Sample size plus the exact scale applied through inDensity.
+	 */
+	@Benchmark
+	public void calculateFillSizing(Blackhole blackhole) {
+		for (int[] size : sizes) {
+			blackhole.consume(DecodeSizing.calculateInSampleSize(size[0], size[1], size[2], size[3], ScaleMode.FILL));
+			blackhole.consume(DecodeSizing.calculateScale(size[0], size[1], size[2], size[3], ScaleMode.FILL));
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A binary journal whose last record was cut short by a crash must be
+ * rewritten on open, otherwise every record appended afterwards is read at
+ * the wrong offset.
+ */
+public class BinaryJournalTest {
+
+	private static final String A = KeyHasher.hashKeyForDisk("a");
+	private static final String B = KeyHasher.hashKeyForDisk("b");
+	private static final String C = KeyHasher.hashKeyForDisk("c");
+	private static final String D = KeyHasher.hashKeyForDisk("d");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void garbageAfterTheLastRecordIsDropped() throws IOException {
+		LruDiskCache cache = open();
+		put(cache, A, "a");
+		put(cache, B, "b");
+		cache.close();
+		FileOutputStream out = new FileOutputStream(journal(), true);
+		try {
+			out.write(new byte[] { 1, 2, 3, 4, 5 });
+		} finally {
+			out.close();
+		}
+		long tornLength = journal().length();
+
+		cache = open();
+		assertTrue(journal().length() < tornLength);
+		put(cache, C, "c");
+		put(cache, D, "d");
+		cache.close();
+
+		cache = open();
+		assertEquals("a", read(cache, A));
+		assertEquals("b", read(cache, B));
+		assertEquals("c", read(cache, C));
+		assertEquals("d", read(cache, D));
+		cache.close();
+	}
+
+	@Test
+	public void truncatedLastRecordIsDropped() throws IOException {
+		LruDiskCache cache = open();
+		put(cache, A, "a");
+		put(cache, B, "b");
+		cache.close();
+		// cut into the CLEAN record of B, leaving only its DIRTY record
+		RandomAccessFile file = new RandomAccessFile(journal(), "rw");
+		try {
+			file.setLength(file.length() - 3);
+		} finally {
+			file.close();
+		}
+
+		cache = open();
+		assertEquals("a", read(cache, A));
+		assertNull(cache.get(B));
+		put(cache, C, "c");
+		cache.close();
+
+		cache = open();
+		assertEquals("a", read(cache, A));
+		assertNull(cache.get(B));
+		assertEquals("c", read(cache, C));
+		cache.close();
+	}
+
+	private LruDiskCache open() throws IOException {
+		return LruDiskCache.open(folder.getRoot(), 1, 1, Long.MAX_VALUE, true);
+	}
+
+	private File journal() {
+		return new File(folder.getRoot(), LruDiskCache.JOURNAL_FILE_BINARY);
+	}
+
+	private static void put(LruDiskCache cache, String key, String value) throws IOException {
+		LruDiskCache.Editor editor = cache.edit(key);
+		editor.set(0, value);
+		editor.commit();
+	}
+
+	private static String read(LruDiskCache cache, String key) throws IOException {
+		LruDiskCache.Snapshot snapshot = cache.get(key);
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			return snapshot.getString(0);
+		} finally {
+			snapshot.close();
+		}
+	}
+
+}
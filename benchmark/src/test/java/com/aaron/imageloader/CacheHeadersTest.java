@@ -0,0 +1,107 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CacheHeadersTest {
+
+	private static final long NOW = 1000000000000L;
+
+	@Test
+	public void parsesMaxAge() {
+		assertEquals(-1, CacheHeaders.parseMaxAge(null));
+		assertEquals(-1, CacheHeaders.parseMaxAge("public"));
+		assertEquals(60, CacheHeaders.parseMaxAge("max-age=60"));
+		assertEquals(60, CacheHeaders.parseMaxAge("public, MAX-AGE=60 , must-revalidate"));
+		assertEquals(60, CacheHeaders.parseMaxAge("max-age=\"60\""));
+		assertEquals(0, CacheHeaders.parseMaxAge("max-age=-5"));
+	}
+
+	@Test
+	public void noCacheAndNoStoreMeanZero() {
+		assertEquals(0, CacheHeaders.parseMaxAge("max-age=60, no-cache"));
+		assertEquals(0, CacheHeaders.parseMaxAge("No-Store"));
+	}
+
+	@Test
+	public void ignoresMalformedMaxAge() {
+		assertEquals(-1, CacheHeaders.parseMaxAge("max-age=soon"));
+		assertEquals(-1, CacheHeaders.parseMaxAge("max-age="));
+		assertEquals(-1, CacheHeaders.parseMaxAge("max-age=\""));
+		assertEquals(30, CacheHeaders.parseMaxAge("max-age=x, max-age=30"));
+	}
+
+	@Test
+	public void maxAgeWinsOverExpires() {
+		CacheHeaders headers = CacheHeaders.fromResponse("\"v1\"", null, "max-age=60", NOW + 3600000, NOW, NOW);
+		assertEquals(NOW + 60000, headers.getExpires());
+		assertEquals(NOW, headers.getFetchedAt());
+		assertEquals("\"v1\"", headers.getEtag());
+	}
+
+	@Test
+	public void expiresIsCorrectedForTheServerClock() {
+		// the server clock is an hour ahead of ours
+		long serverNow = NOW + 3600000;
+		CacheHeaders headers = CacheHeaders.fromResponse(null, null, null, serverNow + 60000, serverNow, NOW);
+		assertEquals(NOW + 60000, headers.getExpires());
+
+		headers = CacheHeaders.fromResponse(null, null, null, NOW + 60000, 0, NOW);
+		assertEquals(NOW + 60000, headers.getExpires());
+	}
+
+	@Test
+	public void withoutExpiryTheDefaultMaxAgeApplies() {
+		CacheHeaders headers = CacheHeaders.fromResponse(null, "Mon, 01 Jan 2024 00:00:00 GMT", null, 0, 0, NOW);
+		assertEquals(CacheHeaders.NO_EXPIRES, headers.getExpires());
+		assertTrue(headers.hasValidators());
+		assertTrue(headers.isFresh(NOW + 999, 1000));
+		assertFalse(headers.isFresh(NOW + 1000, 1000));
+	}
+
+	@Test
+	public void freshUntilExpires() {
+		CacheHeaders headers = new CacheHeaders(null, null, NOW, NOW + 1000);
+		assertFalse(headers.hasValidators());
+		assertTrue(headers.isFresh(NOW + 999, 0));
+		assertFalse(headers.isFresh(NOW + 1000, Long.MAX_VALUE));
+	}
+
+	@Test
+	public void updateKeepsValidatorsTheRevalidationOmits() {
+		CacheHeaders cached = new CacheHeaders("\"v1\"", "yesterday", NOW, NOW + 1000);
+		CacheHeaders updated = cached.update(new CacheHeaders(null, "today", NOW + 5000, NOW + 65000));
+		assertEquals("\"v1\"", updated.getEtag());
+		assertEquals("today", updated.getLastModified());
+		assertEquals(NOW + 5000, updated.getFetchedAt());
+		assertEquals(NOW + 65000, updated.getExpires());
+	}
+
+	@Test
+	public void encodeRoundTrips() {
+		CacheHeaders headers = new CacheHeaders("W/\"a b\"", "Mon, 01 Jan 2024 00:00:00 GMT", NOW, NOW + 1000);
+		CacheHeaders decoded = CacheHeaders.decode(headers.encode());
+		assertEquals(headers.getEtag(), decoded.getEtag());
+		assertEquals(headers.getLastModified(), decoded.getLastModified());
+		assertEquals(headers.getFetchedAt(), decoded.getFetchedAt());
+		assertEquals(headers.getExpires(), decoded.getExpires());
+
+		decoded = CacheHeaders.decode(new CacheHeaders(null, null, NOW, CacheHeaders.NO_EXPIRES).encode());
+		assertNull(decoded.getEtag());
+		assertNull(decoded.getLastModified());
+		assertEquals(CacheHeaders.NO_EXPIRES, decoded.getExpires());
+	}
+
+	@Test
+	public void decodeRejectsMalformedText() {
+		assertNull(CacheHeaders.decode(null));
+		assertNull(CacheHeaders.decode(""));
+		assertNull(CacheHeaders.decode("1\n2\n"));
+		assertNull(CacheHeaders.decode("soon\n2\n\n\n"));
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DecodeSizingTest {
+
+	private static final float DELTA = 1e-6f;
+
+	@Test
+	public void sampleSizeIsTheLargestPowerOfTwoThatStaysAboveTheTarget() {
+		assertEquals(1, DecodeSizing.calculateInSampleSize(1000, 1000, 1000, 1000));
+		assertEquals(1, DecodeSizing.calculateInSampleSize(1000, 1000, 501, 501));
+		assertEquals(2, DecodeSizing.calculateInSampleSize(1000, 1000, 500, 500));
+		assertEquals(2, DecodeSizing.calculateInSampleSize(1000, 1000, 251, 251));
+		assertEquals(4, DecodeSizing.calculateInSampleSize(1000, 1000, 250, 250));
+		assertEquals(32, DecodeSizing.calculateInSampleSize(4000, 3000, 100, 75));
+	}
+
+	@Test
+	public void sampleSizeNeverUpscales() {
+		assertEquals(1, DecodeSizing.calculateInSampleSize(100, 100, 400, 400));
+	}
+
+	@Test
+	public void sampleSizeFollowsTheScaleMode() {
+		// FIT has to fit the longer side, FILL has to cover the shorter one
+		assertEquals(8, DecodeSizing.calculateInSampleSize(4000, 2000, 400, 400, ScaleMode.FIT));
+		assertEquals(4, DecodeSizing.calculateInSampleSize(4000, 2000, 400, 400, ScaleMode.FILL));
+	}
+
+	@Test
+	public void unknownSizesAreNotScaled() {
+		assertEquals(1, DecodeSizing.calculateScale(0, 100, 50, 50, ScaleMode.FIT), DELTA);
+		assertEquals(1, DecodeSizing.calculateScale(100, 100, 0, 50, ScaleMode.FIT), DELTA);
+		assertEquals(1, DecodeSizing.calculateScale(100, 100, 50, -1, ScaleMode.FILL), DELTA);
+		assertEquals(1, DecodeSizing.calculateInSampleSize(0, 0, 50, 50));
+	}
+
+	@Test
+	public void scaleFitsOrFillsTheTarget() {
+		assertEquals(0.1f, DecodeSizing.calculateScale(4000, 2000, 400, 400, ScaleMode.FIT), DELTA);
+		assertEquals(0.2f, DecodeSizing.calculateScale(4000, 2000, 400, 400, ScaleMode.FILL), DELTA);
+		assertEquals(1, DecodeSizing.calculateScale(400, 200, 800, 800, ScaleMode.FILL), DELTA);
+	}
+
+	@Test
+	public void sampledSizeRoundsUpLikeTheDecoder() {
+		assertEquals(500, DecodeSizing.getSampledSize(1000, 2));
+		assertEquals(501, DecodeSizing.getSampledSize(1001, 2));
+		assertEquals(1, DecodeSizing.getSampledSize(3, 4));
+	}
+
+	@Test
+	public void scaledSizeRoundsAndIsAtLeastOne() {
+		assertEquals(333, DecodeSizing.getScaledSize(1000, 1 / 3f));
+		assertEquals(667, DecodeSizing.getScaledSize(1000, 2 / 3f));
+		assertEquals(1, DecodeSizing.getScaledSize(10, 0.01f));
+	}
+
+	@Test
+	public void sampledThenScaledSizeHitsTheTarget() {
+		int width = 3264;
+		int height = 2448;
+		int reqWidth = 480;
+		int reqHeight = 480;
+		for (ScaleMode scaleMode : ScaleMode.values()) {
+			int inSampleSize = DecodeSizing.calculateInSampleSize(width, height, reqWidth, reqHeight, scaleMode);
+			int sampledWidth = DecodeSizing.getSampledSize(width, inSampleSize);
+			int sampledHeight = DecodeSizing.getSampledSize(height, inSampleSize);
+			float scale = DecodeSizing.calculateScale(sampledWidth, sampledHeight, reqWidth, reqHeight, scaleMode);
+			// sampling alone must never go below the target
+			assertTrue(scale <= 1);
+			int scaledWidth = DecodeSizing.getScaledSize(sampledWidth, scale);
+			int scaledHeight = DecodeSizing.getScaledSize(sampledHeight, scale);
+			if (scaleMode == ScaleMode.FILL) {
+				assertEquals(scaleMode.name(), reqHeight, Math.min(scaledWidth, scaledHeight));
+			} else {
+				assertEquals(scaleMode.name(), reqWidth, Math.max(scaledWidth, scaledHeight));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ExifThumbnailSnifferTest {
+
+	private static final byte[] THUMBNAIL = { (byte) 0xff, (byte) 0xd8, 1, 2, 3, 4, 5, 6, (byte) 0xff, (byte) 0xd9 };
+
+	/**
+	 * Offset of the thumbnail from the start of the TIFF header: 8 byte header,
+	 * an empty IFD0 and an IFD1 with two entries.
+	 */
+	private static final int THUMBNAIL_OFFSET = 8 + (2 + 4) + (2 + 2 * 12 + 4);
+
+	@Test
+	public void findsTheThumbnail() {
+		assertThumbnail(jpeg(false), 1 << 20);
+		assertThumbnail(jpeg(true), 1 << 20);
+	}
+
+	@Test
+	public void findsTheThumbnailInSmallChunks() {
+		assertThumbnail(jpeg(false), 1);
+		assertThumbnail(jpeg(true), 3);
+	}
+
+	@Test
+	public void truncatedSegmentWaitsForMoreData() {
+		byte[] jpeg = jpeg(false);
+		ExifThumbnailSniffer sniffer = new ExifThumbnailSniffer();
+		// the download stops inside the APP1 segment
+		assertFalse(sniffer.append(jpeg, 0, jpeg.length - 20));
+		assertFalse(sniffer.hasThumbnail());
+	}
+
+	@Test
+	public void notAJpeg() {
+		ExifThumbnailSniffer sniffer = new ExifThumbnailSniffer();
+		assertTrue(sniffer.append(new byte[] { (byte) 0x89, 'P', 'N', 'G' }, 0, 4));
+		assertFalse(sniffer.hasThumbnail());
+	}
+
+	@Test
+	public void noExifBeforeTheImageData() {
+		byte[] jpeg = { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xda, 0, 2, 0, 0 };
+		assertNotFound(jpeg);
+	}
+
+	@Test
+	public void segmentLengthTooShort() {
+		byte[] jpeg = jpeg(false);
+		// the APP1 length field, too short for the "Exif" header and TIFF header
+		for (int length = 0; length < 2 + 6 + 8; length++) {
+			jpeg[tiff() - 8] = 0;
+			jpeg[tiff() - 7] = (byte) length;
+			assertNotFound(jpeg);
+		}
+	}
+
+	@Test
+	public void thumbnailPastTheSegmentEnd() {
+		byte[] jpeg = jpeg(false);
+		// the thumbnail length entry
+		putInt(jpeg, tiff() + 8 + 6 + 2 + 12 + 8, THUMBNAIL.length + 1, false);
+		assertNotFound(jpeg);
+	}
+
+	@Test
+	public void ifdOffsetsOutsideTheSegment() {
+		byte[] jpeg = jpeg(false);
+		putInt(jpeg, tiff() + 4, 0x7fffffff, false);
+		assertNotFound(jpeg);
+
+		jpeg = jpeg(false);
+		putInt(jpeg, tiff() + 8 + 2, 0xfffffff0, false);
+		assertNotFound(jpeg);
+
+		jpeg = jpeg(false);
+		putInt(jpeg, tiff() + 4, 2, false);
+		assertNotFound(jpeg);
+	}
+
+	@Test
+	public void entryCountPastTheSegmentEnd() {
+		byte[] jpeg = jpeg(true);
+		jpeg[tiff() + 8 + 6] = (byte) 0xff;
+		jpeg[tiff() + 8 + 6 + 1] = (byte) 0xff;
+		assertNotFound(jpeg);
+	}
+
+	@Test
+	public void badTiffHeader() {
+		byte[] jpeg = jpeg(false);
+		jpeg[tiff()] = 'X';
+		assertNotFound(jpeg);
+
+		jpeg = jpeg(false);
+		jpeg[tiff() + 2] = 43;
+		assertNotFound(jpeg);
+	}
+
+	@Test
+	public void thumbnailIsNotAJpeg() {
+		byte[] jpeg = jpeg(false);
+		jpeg[tiff() + THUMBNAIL_OFFSET] = 0;
+		assertNotFound(jpeg);
+	}
+
+	private static void assertThumbnail(byte[] jpeg, int chunk) {
+		ExifThumbnailSniffer sniffer = new ExifThumbnailSniffer();
+		boolean done = false;
+		for (int offset = 0; offset < jpeg.length && !done; offset += chunk) {
+			done = sniffer.append(jpeg, offset, Math.min(chunk, jpeg.length - offset));
+		}
+		assertTrue(done);
+		assertTrue(sniffer.hasThumbnail());
+		int start = sniffer.getThumbnailOffset();
+		byte[] thumbnail = Arrays.copyOfRange(sniffer.getBuffer(), start, start + sniffer.getThumbnailLength());
+		assertArrayEquals(THUMBNAIL, thumbnail);
+	}
+
+	private static void assertNotFound(byte[] jpeg) {
+		ExifThumbnailSniffer sniffer = new ExifThumbnailSniffer();
+		assertTrue(sniffer.append(jpeg, 0, jpeg.length));
+		assertFalse(sniffer.hasThumbnail());
+		assertNull(sniffer.getBuffer());
+	}
+
+	/**
+	 * Offset of the TIFF header in {@link #jpeg(boolean)}: SOI, a JFIF APP0
+	 * segment, the APP1 marker and length and "Exif\0\0".
+	 */
+	private static int tiff() {
+		return 2 + (2 + 16) + 4 + 6;
+	}
+
+	/**
+	 * SOI, a JFIF APP0 segment, an EXIF APP1 segment with a thumbnail, and the
+	 * start of the image data.
+	 */
+	private static byte[] jpeg(boolean bigEndian) {
+		ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+		if (bigEndian) {
+			write(tiff, 'M', 'M', 0, 42);
+		} else {
+			write(tiff, 'I', 'I', 42, 0);
+		}
+		writeInt(tiff, 8, bigEndian);
+		// IFD0 without entries
+		writeShort(tiff, 0, bigEndian);
+		writeInt(tiff, 8 + 6, bigEndian);
+		// IFD1 with the thumbnail offset and length
+		writeShort(tiff, 2, bigEndian);
+		writeShort(tiff, 0x0201, bigEndian);
+		writeShort(tiff, 4, bigEndian);
+		writeInt(tiff, 1, bigEndian);
+		writeInt(tiff, THUMBNAIL_OFFSET, bigEndian);
+		writeShort(tiff, 0x0202, bigEndian);
+		writeShort(tiff, 4, bigEndian);
+		writeInt(tiff, 1, bigEndian);
+		writeInt(tiff, THUMBNAIL.length, bigEndian);
+		writeInt(tiff, 0, bigEndian);
+		tiff.write(THUMBNAIL, 0, THUMBNAIL.length);
+
+		ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+		write(jpeg, 0xff, 0xd8);
+		write(jpeg, 0xff, 0xe0);
+		writeShort(jpeg, 16, true);
+		write(jpeg, 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0);
+		write(jpeg, 0xff, 0xe1);
+		writeShort(jpeg, 2 + 6 + tiff.size(), true);
+		write(jpeg, 'E', 'x', 'i', 'f', 0, 0);
+		byte[] tiffBytes = tiff.toByteArray();
+		jpeg.write(tiffBytes, 0, tiffBytes.length);
+		write(jpeg, 0xff, 0xda, 0, 2);
+		return jpeg.toByteArray();
+	}
+
+	private static void write(ByteArrayOutputStream out, int... bytes) {
+		for (int b : bytes) {
+			out.write(b);
+		}
+	}
+
+	private static void writeShort(ByteArrayOutputStream out, int value, boolean bigEndian) {
+		if (bigEndian) {
+			write(out, value >>> 8, value);
+		} else {
+			write(out, value, value >>> 8);
+		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value, boolean bigEndian) {
+		if (bigEndian) {
+			write(out, value >>> 24, value >>> 16, value >>> 8, value);
+		} else {
+			write(out, value, value >>> 8, value >>> 16, value >>> 24);
+		}
+	}
+
+	private static void putInt(byte[] data, int offset, int value, boolean bigEndian) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeInt(out, value, bigEndian);
+		System.arraycopy(out.toByteArray(), 0, data, offset, 4);
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void countsIncrements() {
+		FrequencySketch sketch = new FrequencySketch(1024);
+		assertEquals(0, sketch.frequency("a"));
+		sketch.increment("a");
+		sketch.increment("a");
+		sketch.increment("a");
+		sketch.increment("b");
+		assertEquals(3, sketch.frequency("a"));
+		assertEquals(1, sketch.frequency("b"));
+		assertEquals(0, sketch.frequency("c"));
+	}
+
+	@Test
+	public void saturatesAtFifteen() {
+		FrequencySketch sketch = new FrequencySketch(1024);
+		for (int i = 0; i < 100; i++) {
+			sketch.increment("a");
+		}
+		assertEquals(15, sketch.frequency("a"));
+	}
+
+	@Test
+	public void halvesCountsAfterTheSampleSize() {
+		// 1024 counters per row, halved after 10 * 1024 recorded increments
+		FrequencySketch sketch = new FrequencySketch(1024);
+		for (int i = 0; i < 15; i++) {
+			sketch.increment("hot");
+		}
+		for (int i = 0; i < 10 * 1024; i++) {
+			sketch.increment("cold" + i);
+		}
+		int frequency = sketch.frequency("hot");
+		assertTrue("frequency " + frequency, frequency < 15);
+	}
+
+	@Test
+	public void clearForgetsEverything() {
+		FrequencySketch sketch = new FrequencySketch(1024);
+		sketch.increment("a");
+		sketch.clear();
+		assertEquals(0, sketch.frequency("a"));
+	}
+
+}
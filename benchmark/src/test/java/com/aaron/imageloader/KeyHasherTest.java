@@ -0,0 +1,126 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KeyHasherTest {
+
+	private static final String URL = "http://img.example.com/photos/图片.jpg?w=100";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void md5MatchesTheKeysOfOlderVersions() throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("MD5");
+		digest.update(URL.getBytes("UTF-8"));
+		StringBuilder expected = new StringBuilder();
+		for (byte b : digest.digest()) {
+			String hex = Integer.toHexString(0xFF & b);
+			if (hex.length() == 1) {
+				expected.append('0');
+			}
+			expected.append(hex);
+		}
+		assertEquals(expected.toString(), KeyHasher.md5(URL));
+		assertEquals(expected.toString(), KeyHasher.hashKeyForDisk(URL));
+	}
+
+	@Test
+	public void murmur3MatchesTheReferenceOutput() {
+		assertEquals("00000000000000000000000000000000", KeyHasher.murmur3(""));
+		assertEquals("6c1b07bc7bbc4be347939ac4a93c437a",
+				KeyHasher.murmur3("The quick brown fox jumps over the lazy dog"));
+	}
+
+	@Test
+	public void cachedHashMatchesTheUncachedHash() {
+		KeyHasher hasher = new KeyHasher(KeyHasher.Algorithm.MURMUR3_128, 2);
+		for (int i = 0; i < 5; i++) {
+			String url = URL + i;
+			assertEquals(KeyHasher.murmur3(url), hasher.hash(url));
+			assertEquals(KeyHasher.murmur3(url), hasher.hash(url));
+		}
+		assertEquals(KeyHasher.md5(URL), new KeyHasher(KeyHasher.Algorithm.MD5, 0).hash(URL));
+	}
+
+	@Test
+	public void legacyEntryIsRenamedToTheNewKey() throws IOException {
+		String legacyKey = KeyHasher.md5(URL);
+		String key = KeyHasher.murmur3(URL);
+		assertNotEquals(legacyKey, key);
+
+		// written by a version that still used MD5 keys
+		LruDiskCache cache = LruDiskCache.open(folder.getRoot(), 1, 1, Long.MAX_VALUE, true);
+		put(cache, legacyKey, "image");
+
+		// the lookup a disk stage does for a MURMUR3_128 hasher
+		assertNull(cache.get(key));
+		assertTrue(cache.rename(legacyKey, key));
+		assertEquals("image", read(cache, key));
+		assertNull(cache.get(legacyKey));
+		cache.close();
+
+		cache = LruDiskCache.open(folder.getRoot(), 1, 1, Long.MAX_VALUE, true);
+		assertEquals("image", read(cache, key));
+		assertNull(cache.get(legacyKey));
+		assertFalse("nothing left to migrate", cache.rename(legacyKey, key));
+		cache.close();
+	}
+
+	@Test
+	public void renameKeepsAnExistingEntryForTheNewKey() throws IOException {
+		String legacyKey = KeyHasher.md5(URL);
+		String key = KeyHasher.murmur3(URL);
+		LruDiskCache cache = LruDiskCache.open(folder.getRoot(), 1, 1, Long.MAX_VALUE, true);
+		put(cache, legacyKey, "old");
+		put(cache, key, "new");
+		assertFalse(cache.rename(legacyKey, key));
+		assertEquals("new", read(cache, key));
+		assertEquals("old", read(cache, legacyKey));
+		cache.close();
+	}
+
+	@Test
+	public void renameSkipsAnEntryBeingEdited() throws IOException {
+		String legacyKey = KeyHasher.md5(URL);
+		String key = KeyHasher.murmur3(URL);
+		LruDiskCache cache = LruDiskCache.open(folder.getRoot(), 1, 1, Long.MAX_VALUE, true);
+		put(cache, legacyKey, "old");
+		LruDiskCache.Editor editor = cache.edit(legacyKey);
+		assertFalse(cache.rename(legacyKey, key));
+		editor.abort();
+		assertTrue(cache.rename(legacyKey, key));
+		assertEquals("old", read(cache, key));
+		cache.close();
+	}
+
+	private static void put(LruDiskCache cache, String key, String value) throws IOException {
+		LruDiskCache.Editor editor = cache.edit(key);
+		editor.set(0, value);
+		editor.commit();
+	}
+
+	private static String read(LruDiskCache cache, String key) throws IOException {
+		LruDiskCache.Snapshot snapshot = cache.get(key);
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			return snapshot.getString(0);
+		} finally {
+			snapshot.close();
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Lookups that do not take the cache lock: a reader must never wait for a
+ * writer and must only ever see a committed edit.
+ */
+public class LruDiskCacheTest {
+
+	private static final String KEY = KeyHasher.hashKeyForDisk("http://img.example.com/a.jpg");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private LruDiskCache cache;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws IOException {
+		cache = LruDiskCache.open(folder.getRoot(), 1, 2, Long.MAX_VALUE);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		executor.shutdownNow();
+		cache.close();
+	}
+
+	@Test
+	public void getDoesNotWaitForTheCacheLock() throws Exception {
+		put(KEY, "a");
+		Future<String> read;
+		synchronized (cache) {
+			// every method that mutates the journal holds this monitor
+			read = executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					return read(KEY);
+				}
+			});
+			assertEquals("a", read.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void getDuringAnEditReturnsTheCommittedValue() throws Exception {
+		put(KEY, "a");
+		LruDiskCache.Editor editor = cache.edit(KEY);
+		editor.set(0, "b");
+		editor.set(1, "b");
+		assertEquals("a", read(KEY));
+		editor.commit();
+		assertEquals("b", read(KEY));
+	}
+
+	@Test
+	public void getDuringTheFirstEditReturnsNull() throws Exception {
+		LruDiskCache.Editor editor = cache.edit(KEY);
+		editor.set(0, "a");
+		editor.set(1, "a");
+		assertNull(cache.get(KEY));
+		editor.commit();
+		assertEquals("a", read(KEY));
+	}
+
+	@Test
+	public void concurrentGetNeverMixesTwoEdits() throws Exception {
+		put(KEY, "0");
+		final AtomicBoolean done = new AtomicBoolean();
+		Future<Integer> reader = executor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				int reads = 0;
+				while (!done.get()) {
+					LruDiskCache.Snapshot snapshot = cache.get(KEY);
+					assertNotNull(snapshot);
+					try {
+						String first = snapshot.getString(0);
+						assertEquals(first, snapshot.getString(1));
+					} finally {
+						snapshot.close();
+					}
+					reads++;
+				}
+				return reads;
+			}
+		});
+		try {
+			for (int i = 1; i <= 500; i++) {
+				put(KEY, String.valueOf(i));
+			}
+		} finally {
+			done.set(true);
+		}
+		reader.get(30, TimeUnit.SECONDS);
+		assertEquals("500", read(KEY));
+	}
+
+	/**
+	 * Writes {@code value} to both values of {@code key}.
+	 */
+	private void put(String key, String value) throws IOException {
+		LruDiskCache.Editor editor = cache.edit(key);
+		editor.set(0, value);
+		editor.set(1, value);
+		editor.commit();
+	}
+
+	private String read(String key) throws IOException {
+		LruDiskCache.Snapshot snapshot = cache.get(key);
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			String value = snapshot.getString(0);
+			assertEquals(value, snapshot.getString(1));
+			return value;
+		} finally {
+			snapshot.close();
+		}
+	}
+
+}
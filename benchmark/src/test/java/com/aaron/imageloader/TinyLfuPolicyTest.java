@@ -0,0 +1,74 @@
+package com.aaron.imageloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import android.graphics.Bitmap;
+
+public class TinyLfuPolicyTest {
+
+	private static final Bitmap BITMAP = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+	private static final int BITMAP_SIZE = BITMAP.getByteCount();
+
+	@Test
+	public void admitsOnlyAMoreFrequentCandidate() {
+		TinyLfuPolicy<String> policy = new TinyLfuPolicy<String>(new LruPolicy<String>(), 1024);
+		policy.onInsert("victim", 1);
+		policy.onAccess("victim");
+		policy.onAccess("victim");
+
+		policy.onAccess("candidate");
+		assertFalse(policy.admit("candidate", "victim"));
+		policy.onAccess("candidate");
+		assertFalse("ties keep the victim", policy.admit("candidate", "victim"));
+		policy.onAccess("candidate");
+		assertTrue(policy.admit("candidate", "victim"));
+	}
+
+	@Test
+	public void unseenCandidateIsRejected() {
+		TinyLfuPolicy<String> policy = new TinyLfuPolicy<String>(new LruPolicy<String>(), 1024);
+		policy.onInsert("victim", 1);
+		assertFalse(policy.admit("candidate", "victim"));
+	}
+
+	@Test
+	public void clearForgetsFrequencies() {
+		TinyLfuPolicy<String> policy = new TinyLfuPolicy<String>(new LruPolicy<String>(), 1024);
+		policy.onAccess("candidate");
+		policy.clear();
+		policy.onInsert("victim", 1);
+		assertFalse(policy.admit("candidate", "victim"));
+	}
+
+	@Test
+	public void oneOffPutDoesNotReplaceAWarmEntry() {
+		PolicyMemoryCache cache = PolicyMemoryCache.newTinyLfuCache(BITMAP_SIZE, 16, null);
+		assertTrue(cache.put("warm", BITMAP));
+		cache.get("warm");
+
+		// the way ImageLoader loads a bitmap: a missed lookup, then check and put
+		assertNull(cache.get("once"));
+		assertFalse(cache.containsKey("once"));
+		assertFalse(cache.put("once", BITMAP));
+		assertNull(cache.get("once"));
+		assertEquals(BITMAP, cache.get("warm"));
+	}
+
+	@Test
+	public void containsKeyIsNotCountedAsAnAccess() {
+		PolicyMemoryCache cache = PolicyMemoryCache.newTinyLfuCache(BITMAP_SIZE, 16, null);
+		assertTrue(cache.put("warm", BITMAP));
+		for (int i = 0; i < 5; i++) {
+			assertFalse(cache.containsKey("once"));
+		}
+		assertFalse(cache.put("once", BITMAP));
+		assertTrue(cache.containsKey("warm"));
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.aaron.imageloader;
+
+/**
+ * 解码时Bitmap格式的选择方式
+ * 
+ * @author Aaron
+ * 
+ */
+public enum BitmapConfigPolicy {
+
+	/**
+	 * 总是使用ARGB_8888，每个像素4字节
+	 */
+	ARGB_8888,
+
+	/**
+	 * 不透明的图片（JPEG）使用RGB_565，每个像素2字节，同样的内存缓存可以多存一倍的图片；其他格式使用ARGB_8888
+	 */
+	RGB_565_IF_OPAQUE
+
+}
@@ -0,0 +1,34 @@
+package com.aaron.imageloader;
+
+import android.graphics.Bitmap;
+
+/**
+ * Bitmap复用池，保存不再使用的Bitmap，解码时通过inBitmap复用其像素内存
+ * 
+ * @author Aaron
+ * 
+ */
+public interface BitmapPoolAware {
+
+	/**
+	 * 放入一张不再显示的Bitmap
+	 * @param bitmap
+	 * @return 不能复用或超出容量时返回false
+	 */
+	boolean put(Bitmap bitmap);
+
+	/**
+	 * 取出一张可以解码为指定宽高和格式的Bitmap，取出后从池中移除
+	 * @param width
+	 * @param height
+	 * @param config
+	 * @return 没有合适的Bitmap时返回null
+	 */
+	Bitmap get(int width, int height, Bitmap.Config config);
+
+	/**
+	 * 清空
+	 */
+	void clear();
+
+}
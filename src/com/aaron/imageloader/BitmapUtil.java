@@ -1,11 +1,18 @@
 package com.aaron.imageloader;
 
+import java.io.BufferedInputStream;
 import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
 
+import android.annotation.TargetApi;
+import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.BitmapFactory.Options;
+import android.os.Build;
 import android.util.DisplayMetrics;
 import android.view.ViewGroup.LayoutParams;
 import android.widget.ImageView;
@@ -17,6 +24,16 @@ import android.widget.ImageView;
  */
 public class BitmapUtil {
 
+	/**
+	 * 文件头读取时的缓冲大小
+	 */
+	private static final int HEADER_BUFFER_SIZE = 16 * 1024;
+
+	/**
+	 * 读取图片尺寸时允许回退的最大字节数，超出后重新定位文件
+	 */
+	private static final int HEADER_MARK_LIMIT = 64 * 1024;
+
 	/**
 	 * 根据指定比例缩放图片
 	 * @param fileDescriptor
@@ -25,24 +42,150 @@ public class BitmapUtil {
 	 * @return
 	 */
 	public static Bitmap decodeSampleBitmap(FileDescriptor fileDescriptor, int reqWidth, int reqHeight) {
+		try {
+			// 与fileDescriptor共用同一个文件描述符，这里不能关闭
+			return decodeSampleBitmap(new FileInputStream(fileDescriptor), reqWidth, reqHeight, null);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * 按{@link ScaleMode#FIT}缩放图片
+	 * 
+	 * @param in
+	 * @param reqWidth
+	 * @param reqHeight
+	 * @param bitmapPool
+	 *            复用的Bitmap来源，可以为null
+	 * @return
+	 * @throws IOException
+	 */
+	public static Bitmap decodeSampleBitmap(FileInputStream in, int reqWidth, int reqHeight, BitmapPoolAware bitmapPool)
+			throws IOException {
+		return decodeSampleBitmap(in, reqWidth, reqHeight, ScaleMode.FIT, BitmapConfigPolicy.ARGB_8888, bitmapPool);
+	}
+
+	/**
+	 * 根据指定比例缩放图片，文件头只读取一次，读取尺寸后回退到文件起始位置再完整解码
+	 * 
+	 * <p>
+	 * 先用2的幂inSampleSize解码到不小于目标尺寸的最小图片，KitKat及以上再通过inDensity、inTargetDensity在解码时缩放到精确尺寸
+	 * 
+	 * @param in
+	 * @param reqWidth
+	 * @param reqHeight
+	 * @param scaleMode
+	 *            图片与目标尺寸的关系
+	 * @param configPolicy
+	 *            Bitmap格式的选择方式
+	 * @param bitmapPool
+	 *            复用的Bitmap来源，可以为null
+	 * @return
+	 * @throws IOException
+	 */
+	public static Bitmap decodeSampleBitmap(FileInputStream in, int reqWidth, int reqHeight, ScaleMode scaleMode,
+			BitmapConfigPolicy configPolicy, BitmapPoolAware bitmapPool) throws IOException {
+		final FileChannel channel = in.getChannel();
+		final long start = channel.position();
+		InputStream stream = new BufferedInputStream(in, HEADER_BUFFER_SIZE);
+		stream.mark(HEADER_MARK_LIMIT);
 		final BitmapFactory.Options options = new BitmapFactory.Options();
 		options.inJustDecodeBounds = true;
-		BitmapFactory.decodeFileDescriptor(fileDescriptor, null, options);
-		options.inSampleSize = calculateInSampleSize(options,reqWidth,reqHeight);
+		BitmapFactory.decodeStream(stream, null, options);
 		options.inJustDecodeBounds = false;
-		return BitmapFactory.decodeFileDescriptor(fileDescriptor,null,options);
+		options.inPreferredConfig = selectConfig(configPolicy, options.outMimeType);
+		if (options.inPreferredConfig == Bitmap.Config.RGB_565) {
+			// 减少565格式的色带
+			options.inDither = true;
+		}
+		options.inSampleSize = DecodeSizing.calculateInSampleSize(options.outWidth, options.outHeight, reqWidth,
+				reqHeight, scaleMode);
+		int width = DecodeSizing.getSampledSize(options.outWidth, options.inSampleSize);
+		int height = DecodeSizing.getSampledSize(options.outHeight, options.inSampleSize);
+		boolean densityScaled = false;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			float scale = DecodeSizing.calculateScale(options.outWidth, options.outHeight, reqWidth, reqHeight,
+					scaleMode);
+			int scaledWidth = DecodeSizing.getScaledSize(options.outWidth, scale);
+			if (scaledWidth < width) {
+				// 解码时按密度比例缩放，不再生成中间图片
+				options.inScaled = true;
+				options.inDensity = width;
+				options.inTargetDensity = scaledWidth;
+				densityScaled = true;
+				height = (int) (height * scaledWidth / (float) width + 0.5f);
+				width = scaledWidth;
+			}
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			addInBitmapOptions(options, bitmapPool, width, height);
+		}
+		try {
+			// 文件头还在缓冲区中，直接回退，不需要再次读取文件
+			stream.reset();
+		} catch (IOException e) {
+			// 文件头超出缓冲区，重新定位到文件起始位置
+			channel.position(start);
+			stream = new BufferedInputStream(in, HEADER_BUFFER_SIZE);
+		}
+		Bitmap bitmap;
+		try {
+			bitmap = BitmapFactory.decodeStream(stream, null, options);
+		} catch (IllegalArgumentException e) {
+			if (options.inBitmap == null) {
+				throw e;
+			}
+			// 复用的Bitmap不兼容，不复用重新解码
+			options.inBitmap = null;
+			channel.position(start);
+			bitmap = BitmapFactory.decodeStream(new BufferedInputStream(in, HEADER_BUFFER_SIZE), null, options);
+		}
+		if (densityScaled && bitmap != null) {
+			// 解码后Bitmap的密度为inTargetDensity，显示时会按它和屏幕密度的比例再次缩放，恢复为普通解码时的屏幕密度
+			bitmap.setDensity(Resources.getSystem().getDisplayMetrics().densityDpi);
+		}
+		return bitmap;
 	}
 
-	private static int calculateInSampleSize(Options options, int reqWidth, int reqHeight) {
-		final int width = options.outWidth;
-		final int height = options.outHeight;
-		int inSampleSize = 1;
-		if (width > reqWidth || height > reqHeight) {
-			final int widthRadio = Math.round(width * 1.0f / reqWidth);
-			final int heightRadio = Math.round(height * 1.0f / reqHeight);
-			inSampleSize = Math.min(widthRadio, heightRadio);
+	/**
+	 * 根据文件头的格式选择Bitmap格式，JPEG没有透明通道，可以使用RGB_565
+	 * 
+	 * @param configPolicy
+	 * @param mimeType
+	 *            读取尺寸时得到的outMimeType，可以为null
+	 * @return
+	 */
+	public static Bitmap.Config selectConfig(BitmapConfigPolicy configPolicy, String mimeType) {
+		if (configPolicy == BitmapConfigPolicy.RGB_565_IF_OPAQUE && "image/jpeg".equals(mimeType)) {
+			return Bitmap.Config.RGB_565;
 		}
-		return inSampleSize;
+		return Bitmap.Config.ARGB_8888;
+	}
+
+	/**
+	 * 从复用池中取出可以复用的Bitmap设置到inBitmap，解码结果设为可变以便之后放回复用池
+	 * 
+	 * @param options
+	 * @param bitmapPool
+	 * @param width
+	 *            解码结果的宽度
+	 * @param height
+	 *            解码结果的高度
+	 */
+	@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+	private static void addInBitmapOptions(BitmapFactory.Options options, BitmapPoolAware bitmapPool, int width,
+			int height) {
+		options.inMutable = true;
+		if (bitmapPool == null) {
+			return;
+		}
+		// KitKat以下只能复用相同尺寸且不缩放的Bitmap
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT && options.inSampleSize != 1) {
+			return;
+		}
+		options.inBitmap = bitmapPool.get(width, height, options.inPreferredConfig);
 	}
 
 	
@@ -83,9 +226,30 @@ public class BitmapUtil {
 		}
 		imageSize.width = width;
 		imageSize.height = height;
+		imageSize.scaleMode = getScaleMode(imageView.getScaleType());
 		return imageSize;
 	}
 
+	/**
+	 * 根据ScaleType判断图片是完整放入还是铺满ImageView
+	 * 
+	 * @param scaleType
+	 * @return
+	 */
+	public static ScaleMode getScaleMode(ImageView.ScaleType scaleType) {
+		if (scaleType == null) {
+			return ScaleMode.FIT;
+		}
+		switch (scaleType) {
+		case CENTER_CROP:
+		case FIT_XY:
+		case CENTER:
+			return ScaleMode.FILL;
+		default:
+			return ScaleMode.FIT;
+		}
+	}
+
 	/**
 	 * 通过反射获取imageview的某个属性值
 	 * 
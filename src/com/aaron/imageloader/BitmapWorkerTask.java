@@ -1,108 +1,582 @@
 package com.aaron.imageloader;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.widget.ImageView;
 
 import com.aaron.imageloader.LruDiskCache.Snapshot;
 
 /**
+ * 图片加载任务，分为硬盘读取、网络下载、解码三个阶段，分别在各自的线程池中执行，结果在主线程中显示
  * 
  * @author Aaron
  *
  */
-public class BitmapWorkerTask extends AsyncTask<String, Void, Bitmap> {
+public class BitmapWorkerTask {
+
+	/**
+	 * 下载时每次读写的块大小
+	 */
+	private static final int IO_BUFFER_SIZE = 32 * 1024;
 
 	/**
 	 * 加载图片工具类
 	 */
 	private ImageLoader imageLoader;
 
-	private ImageView imageView;
+	/**
+	 * 等待该任务结果的ImageView，相同请求的ImageView共用一个任务
+	 */
+	private final List<ImageView> imageViews = new ArrayList<ImageView>();
 
 	/**
 	 * 图片url地址
 	 */
-	private String imageUrl;
+	private final String imageUrl;
+
+	private final ImageSize imageSize;
+
+	/**
+	 * 正在执行任务的key
+	 */
+	private final String requestKey;
+
+	/**
+	 * 任务优先级，每个阶段都按该优先级排队，ImageView挂到预加载任务上时提高
+	 */
+	private volatile Priority priority;
+
+	/**
+	 * 最近提交的解码阶段，用于提高优先级时重新排队
+	 */
+	private volatile Runnable decodeStage;
+
+	/**
+	 * Bitmap格式的选择方式
+	 */
+	private final BitmapConfigPolicy configPolicy;
+
+	/**
+	 * 所属的预加载任务组，普通加载时为null
+	 */
+	private final PrefetchGroup prefetchGroup;
+
+	/**
+	 * 预加载时是否解码放入内存缓存，否则只写入硬盘缓存
+	 */
+	private final boolean warmMemory;
+
+	/**
+	 * 是否有ImageView挂到该任务上，预加载任务据此决定是否需要解码
+	 */
+	private volatile boolean viewAttached;
+
+	/**
+	 * 网络下载阶段是否在等待其他任务写入同一图片，等待结束后重新执行时先读取硬盘缓存
+	 */
+	private volatile boolean editAwaited;
+
+	/**
+	 * 是否已取消，取消后后续阶段不再执行
+	 */
+	private volatile boolean cancelled;
+
+	/**
+	 * 是否已结束，只在主线程中访问
+	 */
+	private boolean finished;
+
+	/**
+	 * 硬盘读取阶段找到的过期缓存，交给网络下载阶段校验，下载失败时仍使用它
+	 */
+	private Snapshot staleSnapshot;
 
-	private ImageSize imageSize;
+	/**
+	 * 过期缓存的校验信息
+	 */
+	private CacheHeaders staleHeaders;
+
+	public BitmapWorkerTask(ImageLoader imageLoader, ImageView imageView, String imageUrl, ImageSize imageSize,
+			String requestKey, Priority priority, BitmapConfigPolicy configPolicy) {
+		this(imageLoader, imageView, imageUrl, imageSize, requestKey, priority, configPolicy, null, false);
+	}
 
-	public BitmapWorkerTask(ImageLoader imageLoader, ImageView imageView) {
+	/**
+	 * @param prefetchGroup
+	 *            所属的预加载任务组，普通加载时为null
+	 * @param warmMemory
+	 *            预加载时是否解码放入内存缓存
+	 */
+	BitmapWorkerTask(ImageLoader imageLoader, ImageView imageView, String imageUrl, ImageSize imageSize,
+			String requestKey, Priority priority, BitmapConfigPolicy configPolicy, PrefetchGroup prefetchGroup,
+			boolean warmMemory) {
 		this.imageLoader = imageLoader;
-		this.imageView = imageView;
-		imageSize = BitmapUtil.getImageViewSize(imageView);
+		this.imageUrl = imageUrl;
+		this.imageSize = imageSize;
+		this.requestKey = requestKey;
+		this.priority = priority;
+		this.configPolicy = configPolicy;
+		this.prefetchGroup = prefetchGroup;
+		this.warmMemory = warmMemory;
+		if (imageView != null) {
+			imageViews.add(imageView);
+			viewAttached = true;
+		}
 	}
 
-	@Override
-	protected Bitmap doInBackground(String... params) {
-		imageUrl = params[0];
-		FileDescriptor fileDescriptor = null;
-		FileInputStream fileInputStream = null;
-		// 读取硬盘缓存对象
-		Snapshot snapshot = null;
-		try {
-			// 生成图片Url对应的key
-			final String key = imageLoader.hashKeyForDisk(imageUrl);
-			// 查找key对应的缓存
-			snapshot = imageLoader.diskCache.get(key);
-			if (snapshot == null) {
-				LruDiskCache.Editor editor = imageLoader.diskCache.edit(key);
-				if (editor != null) {
-					OutputStream outputStream = editor.newOutputStream(0);
-					// 网络获取Bitmap写入指定输出流
-					if (downloadUrlToString(imageUrl, outputStream)) {
-						// 提交生效
-						editor.commit();
-					} else {// 放弃此次写入
-						editor.abort();
+	/**
+	 * 将ImageView挂到该任务上，任务完成后一起显示结果，需在主线程调用
+	 * 
+	 * @param imageView
+	 * @return 任务已结束或已取消时返回false
+	 */
+	public boolean addImageView(ImageView imageView) {
+		if (cancelled || finished) {
+			return false;
+		}
+		if (imageView != null && !imageViews.contains(imageView)) {
+			imageViews.add(imageView);
+			viewAttached = true;
+		}
+		return true;
+	}
+
+	/**
+	 * 将ImageView从该任务上移除，需在主线程调用
+	 * 
+	 * @param imageView
+	 */
+	public void removeImageView(ImageView imageView) {
+		imageViews.remove(imageView);
+	}
+
+	/**
+	 * 是否还有等待结果的ImageView
+	 * 
+	 * @return
+	 */
+	public boolean hasImageViews() {
+		return !imageViews.isEmpty();
+	}
+
+	List<ImageView> getImageViews() {
+		return imageViews;
+	}
+
+	public String getRequestKey() {
+		return requestKey;
+	}
+
+	public Priority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * 提高之后各阶段的优先级，正在排队或等待硬盘缓存打开的阶段按新的优先级重新排队
+	 * 
+	 * @param priority
+	 */
+	void raisePriority(Priority priority) {
+		if (priority != null && priority.ordinal() > this.priority.ordinal()) {
+			this.priority = priority;
+			// 任务同一时间只有一个阶段在排队，不在对应队列中时不做处理。暂停或等待其他任务写入时保存的阶段
+			// 重新提交时读取当前的优先级，不需要处理
+			if (!imageLoader.reprioritizePendingDiskStage(diskStage, priority)
+					&& !imageLoader.getDiskExecutor().reprioritize(diskStage, priority)
+					&& !imageLoader.getNetworkExecutor().reprioritize(networkStage, priority)) {
+				Runnable stage = decodeStage;
+				if (stage != null) {
+					imageLoader.getDecodeExecutor().reprioritize(stage, priority);
+				}
+			}
+		}
+	}
+
+	PrefetchGroup getPrefetchGroup() {
+		return prefetchGroup;
+	}
+
+	/**
+	 * 没有ImageView等待结果时是否可以取消，预加载任务在任务组取消前继续执行
+	 * 
+	 * @return
+	 */
+	boolean isCancellableWithoutViews() {
+		return prefetchGroup == null || prefetchGroup.isCancelled();
+	}
+
+	/**
+	 * 开始执行，先进入硬盘读取阶段，加载暂停时等待恢复后再执行
+	 */
+	public void start() {
+		if (!imageLoader.deferIfPaused(this, resumeDiskStage)) {
+			imageLoader.executeDiskStage(diskStage, priority);
+		}
+	}
+
+	/**
+	 * 取消任务，尚未执行的阶段不再执行，需在主线程调用
+	 */
+	public void cancel() {
+		if (cancelled || finished) {
+			return;
+		}
+		cancelled = true;
+		finished = true;
+		// 从集合中移除任务
+		imageLoader.removeTask(this);
+		imageViews.clear();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * 硬盘读取阶段，命中且未过期时进入解码阶段，否则进入网络下载阶段
+	 */
+	private final Runnable diskStage = new Runnable() {
+		@Override
+		public void run() {
+			if (cancelled || imageLoader.deferIfPaused(BitmapWorkerTask.this, resumeDiskStage)) {
+				return;
+			}
+			LruDiskCache diskCache = imageLoader.diskCache;
+			if (diskCache == null) {
+				// 硬盘缓存打开失败
+				postResult(null);
+				return;
+			}
+			Snapshot snapshot = null;
+			try {
+				String key = imageLoader.hashKeyForDisk(imageUrl);
+				String legacyKey = imageLoader.legacyKeyForDisk(imageUrl);
+				// 查找key对应的缓存
+				snapshot = diskCache.get(key, legacyKey == null);
+				if (snapshot == null && legacyKey != null) {
+					// 旧key的缓存改名后再查找
+					diskCache.rename(legacyKey, key);
+					snapshot = diskCache.get(key);
+				}
+			} catch (Exception e) {
+				notifyError(e);
+			}
+			if (snapshot != null) {
+				CacheHeaders headers = readCacheHeaders(snapshot);
+				if (headers == null || headers.isFresh(System.currentTimeMillis(), imageLoader.getDefaultMaxAge())) {
+					dispatchDecode(snapshot);
+					return;
+				}
+				// 已过期，保留旧缓存，到网络下载阶段校验
+				staleSnapshot = snapshot;
+				staleHeaders = headers;
+			}
+			imageLoader.getNetworkExecutor().execute(networkStage, priority);
+		}
+	};
+
+	/**
+	 * 网络下载阶段，下载写入硬盘缓存后进入解码阶段，已过期的缓存先发送条件请求
+	 */
+	private final Runnable networkStage = new Runnable() {
+		@Override
+		public void run() {
+			if (!cancelled && imageLoader.deferIfPaused(BitmapWorkerTask.this, resumeNetworkStage)) {
+				return;
+			}
+			Snapshot stale = staleSnapshot;
+			staleSnapshot = null;
+			if (cancelled) {
+				// ImageView已重新绑定，不再下载
+				if (stale != null) {
+					stale.close();
+				}
+				return;
+			}
+			LruDiskCache diskCache = imageLoader.diskCache;
+			Snapshot snapshot = null;
+			try {
+				// 生成图片Url对应的key
+				final String key = imageLoader.hashKeyForDisk(imageUrl);
+				LruDiskCache.Editor editor = null;
+				if (editAwaited) {
+					// 等待的其他任务已提交或放弃，先读取其结果
+					editAwaited = false;
+					snapshot = diskCache.get(key, false);
+				}
+				if (snapshot == null) {
+					// 旧缓存已被其他任务更新或正在更新时返回null，不再重复下载
+					editor = stale != null ? stale.edit() : diskCache.edit(key);
+					if (editor == null && stale == null) {
+						// 同一图片正在被其他任务下载，例如ImageView滑回时之前已取消但仍在下载的任务，不占用网络线程等待，
+						// 提交后重新执行本阶段直接读取
+						if (diskCache.runAfterEdit(key, resumeNetworkStage)) {
+							editAwaited = true;
+							return;
+						}
+						// 编辑刚好结束
+						snapshot = diskCache.get(key, false);
+						if (snapshot == null) {
+							// 其他任务下载失败，自己重新下载
+							editor = diskCache.edit(key);
+						}
 					}
 				}
-				// 写入缓存后，再次查找对应的缓存
-				snapshot = imageLoader.diskCache.get(key);
+				if (snapshot == null
+						&& (editor == null || downloadToDiskCache(editor, stale != null ? staleHeaders : null))) {
+					// 写入缓存后，再次查找对应的缓存，不计入命中统计
+					snapshot = diskCache.get(key, false);
+				}
+			} catch (Exception e) {
+				notifyError(e);
+			}
+			if (snapshot == null) {
+				// 下载失败时使用过期的缓存
+				snapshot = stale;
+			} else if (stale != null) {
+				stale.close();
 			}
 			if (snapshot != null) {
-				// 读取缓存文件
-				fileInputStream = (FileInputStream) snapshot.getInputStream(0);
-				fileDescriptor = fileInputStream.getFD();
+				dispatchDecode(snapshot);
+			} else {
+				postResult(null);
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
-		Bitmap bitmap = null;
-		if (fileDescriptor != null) {
-			bitmap = BitmapUtil.decodeSampleBitmap(fileDescriptor, imageSize.width, imageSize.height);
+	};
+
+	/**
+	 * 恢复加载后重新提交硬盘读取阶段
+	 */
+	private final Runnable resumeDiskStage = new Runnable() {
+		@Override
+		public void run() {
+			imageLoader.executeDiskStage(diskStage, priority);
+		}
+	};
+
+	/**
+	 * 恢复加载后重新提交网络下载阶段
+	 */
+	private final Runnable resumeNetworkStage = new Runnable() {
+		@Override
+		public void run() {
+			imageLoader.getNetworkExecutor().execute(networkStage, priority);
 		}
-		if (bitmap != null) {
-			// 图片下载完缓存到lrucache中
-			imageLoader.addBitmapToMemoryCache(params[0], bitmap);
+	};
+
+	/**
+	 * 暂停期间任务被取消，等待的阶段不再执行，释放硬盘读取阶段保留的过期缓存
+	 */
+	void releaseDeferred() {
+		Snapshot stale = staleSnapshot;
+		staleSnapshot = null;
+		if (stale != null) {
+			stale.close();
 		}
-		return bitmap;
 	}
 
-	@Override
-	protected void onPostExecute(Bitmap result) {
-		super.onPostExecute(result);
-		if (imageView != null && imageUrl != null && imageUrl.equals(imageView.getTag().toString())) {
+	/**
+	 * 进入解码阶段，只预加载到硬盘缓存且没有ImageView等待结果时不再解码
+	 * 
+	 * @param snapshot
+	 */
+	private void dispatchDecode(Snapshot snapshot) {
+		if (prefetchGroup == null || warmMemory || viewAttached) {
+			DecodeStage stage = new DecodeStage(snapshot);
+			decodeStage = stage;
+			imageLoader.getDecodeExecutor().execute(stage, priority);
+			return;
+		}
+		snapshot.close();
+		imageLoader.getMainHandler().post(new Runnable() {
+			@Override
+			public void run() {
+				if (finished) {
+					return;
+				}
+				if (!imageViews.isEmpty()) {
+					// 跳过解码后才挂上ImageView，从硬盘缓存重新读取
+					start();
+					return;
+				}
+				finished = true;
+				imageLoader.removeTask(BitmapWorkerTask.this);
+			}
+		});
+	}
+
+	/**
+	 * 解码阶段，解码后放入内存缓存并在主线程中显示
+	 */
+	private class DecodeStage implements Runnable {
+
+		private final Snapshot snapshot;
+
+		private DecodeStage(Snapshot snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public void run() {
+			Bitmap bitmap = null;
+			try {
+				if (!cancelled) {
+					long start = SystemClock.uptimeMillis();
+					// 读取缓存文件
+					FileInputStream fileInputStream = (FileInputStream) snapshot
+							.getInputStream(ImageLoader.DISK_CACHE_INDEX_BODY);
+					bitmap = BitmapUtil.decodeSampleBitmap(fileInputStream, imageSize.width, imageSize.height,
+							imageSize.scaleMode, configPolicy, imageLoader.bitmapPool);
+					LoaderEventListener listener = imageLoader.eventListener;
+					if (listener != null) {
+						listener.onDecode(imageUrl, bitmap != null ? bitmap.getWidth() : 0,
+								bitmap != null ? bitmap.getHeight() : 0, SystemClock.uptimeMillis() - start);
+					}
+				}
+			} catch (Exception e) {
+				notifyError(e);
+			} finally {
+				snapshot.close();
+			}
+			if (bitmap != null) {
+				// 显示前保留，避免放入内存缓存后被移除并复用
+				imageLoader.holdBitmap(bitmap);
+				// 图片下载完按目标尺寸缓存到lrucache中
+				imageLoader.addVariantToMemoryCache(imageUrl, requestKey, imageSize, configPolicy, bitmap);
+			}
+			postResultOrRelease(bitmap);
+		}
+	}
+
+	/**
+	 * 从内存中更大尺寸的缓存缩小得到结果，在解码线程池中执行，不再读取硬盘。缩小结束前source不放入复用池，避免被其他解码覆盖
+	 * 
+	 * @param source
+	 */
+	void startDownscale(final Bitmap source) {
+		imageLoader.holdBitmap(source);
+		imageLoader.getDecodeExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				if (cancelled) {
+					imageLoader.releaseBitmap(source);
+					return;
+				}
+				long start = SystemClock.uptimeMillis();
+				float scale = DecodeSizing.calculateScale(source.getWidth(), source.getHeight(), imageSize.width,
+						imageSize.height, imageSize.scaleMode);
+				int width = DecodeSizing.getScaledSize(source.getWidth(), scale);
+				int height = DecodeSizing.getScaledSize(source.getHeight(), scale);
+				Bitmap bitmap = null;
+				try {
+					bitmap = Bitmap.createScaledBitmap(source, width, height, true);
+					// 结果可能就是source，先保留结果再释放source
+					imageLoader.holdBitmap(bitmap);
+				} catch (Exception e) {
+					notifyError(e);
+				} catch (OutOfMemoryError e) {
+					// 内存不足时按加载失败处理，任务仍需结束
+					notifyError(e);
+				} finally {
+					imageLoader.releaseBitmap(source);
+				}
+				if (bitmap == null) {
+					postResultOrRelease(null);
+					return;
+				}
+				LoaderEventListener listener = imageLoader.eventListener;
+				if (listener != null) {
+					listener.onDecode(imageUrl, width, height, SystemClock.uptimeMillis() - start);
+				}
+				if (bitmap != source) {
+					// 同一个Bitmap不能以两个key缓存，移除时会被放入复用池
+					imageLoader.addVariantToMemoryCache(imageUrl, requestKey, imageSize, configPolicy, bitmap);
+				}
+				postResultOrRelease(bitmap);
+			}
+		}, priority);
+	}
+
+	/**
+	 * 通知监听器加载出现异常
+	 * 
+	 * @param e
+	 */
+	private void notifyError(Throwable e) {
+		LoaderEventListener listener = imageLoader.eventListener;
+		if (listener != null) {
+			listener.onError(imageUrl, e);
+		}
+	}
+
+	/**
+	 * 在主线程中显示结果
+	 * 
+	 * @param result
+	 */
+	private void postResult(final Bitmap result) {
+		imageLoader.getMainHandler().post(new Runnable() {
+			@Override
+			public void run() {
+				onPostExecute(result);
+			}
+		});
+	}
+
+	/**
+	 * 在主线程中显示已保留的结果，显示后释放；任务已取消时直接释放
+	 * 
+	 * @param result
+	 *            为null时表示加载失败
+	 */
+	private void postResultOrRelease(final Bitmap result) {
+		if (cancelled) {
 			if (result != null) {
-				imageView.setImageBitmap(result);
-			} else {// 加载失败
-				if (imageLoader.loadfaildBitmap != null) {
-					imageView.setImageBitmap(imageLoader.loadfaildBitmap);
+				imageLoader.releaseBitmap(result);
+			}
+			return;
+		}
+		imageLoader.getMainHandler().post(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					onPostExecute(result);
+				} finally {
+					if (result != null) {
+						imageLoader.releaseBitmap(result);
+					}
+				}
+			}
+		});
+	}
+
+	private void onPostExecute(Bitmap result) {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		for (ImageView imageView : imageViews) {
+			if (imageUrl != null && imageUrl.equals(imageView.getTag().toString())) {
+				if (result != null) {
+					imageLoader.setImageBitmap(imageView, result);
+				} else {// 加载失败
+					if (imageLoader.getLoadFailBitmap() != null) {
+						imageLoader.setImageBitmap(imageView, imageLoader.getLoadFailBitmap());
+					}
 				}
 			}
 		}
 		// 从集合中移除任务
-		imageLoader.taskCollections.remove(this);
+		imageLoader.removeTask(this);
+		imageViews.clear();
 	}
 
 	/**
@@ -113,18 +587,15 @@ public class BitmapWorkerTask extends AsyncTask<String, Void, Bitmap> {
 	 */
 	public Bitmap downloadBitmap(String imageUrl) {
 		Bitmap bitmap = null;
-		HttpURLConnection con = null;
+		Downloader.Response response = null;
 		try {
-			URL url = new URL(imageUrl);
-			con = (HttpURLConnection) url.openConnection();
-			con.setConnectTimeout(5 * 1000);
-			con.setReadTimeout(10 * 1000);
-			bitmap = BitmapFactory.decodeStream(con.getInputStream());
+			response = imageLoader.getDownloader().open(imageUrl, null);
+			bitmap = BitmapFactory.decodeStream(response.getBody());
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
-			if (con != null) {
-				con.disconnect();
+			if (response != null) {
+				response.close();
 			}
 		}
 		return bitmap;
@@ -138,41 +609,194 @@ public class BitmapWorkerTask extends AsyncTask<String, Void, Bitmap> {
 	 * @return
 	 */
 	public boolean downloadUrlToString(String imageUrl, OutputStream outputStream) {
-		HttpURLConnection urlConnection = null;
-		BufferedOutputStream out = null;
-		BufferedInputStream in = null;
+		Downloader.Response response = null;
+		long start = SystemClock.uptimeMillis();
+		long bytes = 0;
+		boolean success = false;
 		try {
-			final URL url = new URL(imageUrl);
-			urlConnection = (HttpURLConnection) url.openConnection();
-			in = new BufferedInputStream(urlConnection.getInputStream(), 8 * 1024);
-			out = new BufferedOutputStream(outputStream, 8 * 1024);
-			int b;
-			while ((b = in.read()) != -1) {
-				out.write(b);
-			}
-			return true;
+			response = imageLoader.getDownloader().open(imageUrl, null);
+			bytes = copyStream(response.getBody(), outputStream);
+			success = true;
 		} catch (Exception e) {
-			e.printStackTrace();
+			notifyError(e);
 		} finally {
-			if (urlConnection != null) {
-				urlConnection.disconnect();
+			if (response != null) {
+				response.close();
 			}
 			try {
-				if (out != null) {
-					out.close();
+				if (outputStream != null) {
+					outputStream.close();
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
-			try {
-				if (in != null) {
-					in.close();
+		}
+		notifyDownload(bytes, SystemClock.uptimeMillis() - start, success);
+		return success;
+	}
+
+	/**
+	 * 下载图片写入硬盘缓存，cached不为null时发送条件请求，服务器返回304时只更新校验信息
+	 * 
+	 * @param editor
+	 * @param cached
+	 * @return 是否已提交
+	 */
+	private boolean downloadToDiskCache(LruDiskCache.Editor editor, CacheHeaders cached) {
+		Downloader.Response response = null;
+		long start = SystemClock.uptimeMillis();
+		long bytes = 0;
+		boolean committed = false;
+		try {
+			response = imageLoader.getDownloader().open(imageUrl, cached);
+			CacheHeaders headers;
+			if (response.isNotModified()) {
+				if (cached == null) {
+					throw new IOException("HTTP 304 without a cached copy: " + imageUrl);
+				}
+				headers = cached.update(response.getHeaders());
+			} else {
+				OutputStream outputStream = editor.newOutputStream(ImageLoader.DISK_CACHE_INDEX_BODY);
+				try {
+					bytes = copyStream(response.getBody(), outputStream,
+							imageLoader.isProgressivePreview() && viewAttached ? new ExifThumbnailSniffer() : null);
+				} finally {
+					outputStream.close();
+				}
+				headers = response.getHeaders();
+			}
+			editor.set(ImageLoader.DISK_CACHE_INDEX_HEADERS, headers.encode());
+			// 提交生效
+			editor.commit();
+			committed = true;
+		} catch (Exception e) {
+			// 自定义的Downloader可能抛出运行时异常，同样放弃写入，任务仍会显示失败结果并结束
+			notifyError(e);
+		} finally {
+			if (response != null) {
+				response.close();
+			}
+			if (!committed) {
+				// 放弃此次写入，已有的缓存保持不变
+				try {
+					editor.abort();
+				} catch (IOException e) {
+					notifyError(e);
 				}
-			} catch (IOException e) {
-				e.printStackTrace();
 			}
 		}
-		return false;
+		notifyDownload(bytes, SystemClock.uptimeMillis() - start, committed);
+		return committed;
+	}
+
+	/**
+	 * 读取缓存条目中的校验信息
+	 * 
+	 * @param snapshot
+	 * @return 无法读取时返回null
+	 */
+	private CacheHeaders readCacheHeaders(Snapshot snapshot) {
+		try {
+			return CacheHeaders.decode(snapshot.getString(ImageLoader.DISK_CACHE_INDEX_HEADERS));
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void notifyDownload(long bytes, long millis, boolean success) {
+		LoaderEventListener listener = imageLoader.eventListener;
+		if (listener != null) {
+			listener.onDownload(imageUrl, bytes, millis, success);
+		}
+	}
+
+	/**
+	 * 按块将输入流写入输出流，输出流直接写入缓存文件，不再逐字节复制
+	 * 
+	 * @param in
+	 * @param out
+	 * @return 复制的字节数
+	 * @throws IOException
+	 */
+	private static long copyStream(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[IO_BUFFER_SIZE];
+		long total = 0;
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * 复制的同时查找EXIF缩略图，找到后先显示缩略图
+	 * 
+	 * @param in
+	 * @param out
+	 * @param sniffer
+	 *            为null时不查找
+	 * @return 复制的字节数
+	 * @throws IOException
+	 */
+	private long copyStream(InputStream in, OutputStream out, ExifThumbnailSniffer sniffer) throws IOException {
+		if (sniffer == null) {
+			return copyStream(in, out);
+		}
+		byte[] buffer = new byte[IO_BUFFER_SIZE];
+		long total = 0;
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			out.write(buffer, 0, count);
+			total += count;
+			if (sniffer != null && sniffer.append(buffer, 0, count)) {
+				if (sniffer.hasThumbnail() && !cancelled) {
+					postPreview(sniffer);
+				}
+				sniffer = null;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * 在解码线程池中解码EXIF缩略图，在主线程中先显示，不放入内存缓存。下载线程只负责提交，不等待解码
+	 * 
+	 * @param sniffer
+	 *            已结束查找，之后不再修改其中的数据
+	 */
+	private void postPreview(ExifThumbnailSniffer sniffer) {
+		final byte[] data = sniffer.getBuffer();
+		final int offset = sniffer.getThumbnailOffset();
+		final int length = sniffer.getThumbnailLength();
+		imageLoader.getDecodeExecutor().execute(new Runnable() {
+			@Override
+			public void run() {
+				if (cancelled) {
+					return;
+				}
+				BitmapFactory.Options options = new BitmapFactory.Options();
+				// 缩略图是JPEG，没有透明度
+				options.inPreferredConfig = Bitmap.Config.RGB_565;
+				final Bitmap preview = BitmapFactory.decodeByteArray(data, offset, length, options);
+				if (preview == null) {
+					return;
+				}
+				imageLoader.getMainHandler().post(new Runnable() {
+					@Override
+					public void run() {
+						if (finished) {
+							return;
+						}
+						for (ImageView imageView : imageViews) {
+							if (imageUrl.equals(imageView.getTag().toString())) {
+								imageLoader.setImageBitmap(imageView, preview);
+							}
+						}
+					}
+				});
+			}
+		}, priority);
 	}
 
 }
@@ -0,0 +1,188 @@
+package com.aaron.imageloader;
+
+/**
+ * 硬盘缓存中图片的HTTP校验信息，保存在缓存条目的第二个值中，过期后用ETag和Last-Modified发送条件请求
+ *
+ * @author Aaron
+ *
+ */
+public final class CacheHeaders {
+
+	/**
+	 * 服务器没有指定过期时间
+	 */
+	public static final long NO_EXPIRES = -1;
+
+	private final String etag;
+
+	private final String lastModified;
+
+	/**
+	 * 下载或校验的时间，以毫秒为单位
+	 */
+	private final long fetchedAt;
+
+	/**
+	 * 由Cache-Control或Expires得到的过期时间，没有时为{@link #NO_EXPIRES}
+	 */
+	private final long expires;
+
+	/**
+	 * @param etag 没有时为null
+	 * @param lastModified 没有时为null
+	 * @param fetchedAt
+	 * @param expires 没有时为{@link #NO_EXPIRES}
+	 */
+	public CacheHeaders(String etag, String lastModified, long fetchedAt, long expires) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.fetchedAt = fetchedAt;
+		this.expires = expires;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public long getFetchedAt() {
+		return fetchedAt;
+	}
+
+	public long getExpires() {
+		return expires;
+	}
+
+	/**
+	 * 是否可以发送条件请求
+	 *
+	 * @return
+	 */
+	public boolean hasValidators() {
+		return etag != null || lastModified != null;
+	}
+
+	/**
+	 * 是否仍在有效期内，服务器没有指定过期时间时按下载后defaultMaxAge毫秒计算
+	 *
+	 * @param now
+	 * @param defaultMaxAge
+	 * @return
+	 */
+	public boolean isFresh(long now, long defaultMaxAge) {
+		if (expires != NO_EXPIRES) {
+			return now < expires;
+		}
+		return now - fetchedAt < defaultMaxAge;
+	}
+
+	/**
+	 * 服务器返回304后更新校验信息，新响应中没有的值沿用旧值
+	 *
+	 * @param revalidated 304响应的校验信息
+	 * @return
+	 */
+	public CacheHeaders update(CacheHeaders revalidated) {
+		return new CacheHeaders(revalidated.etag != null ? revalidated.etag : etag,
+				revalidated.lastModified != null ? revalidated.lastModified : lastModified, revalidated.fetchedAt,
+				revalidated.expires);
+	}
+
+	/**
+	 * 由响应头计算校验信息
+	 *
+	 * @param etag ETag响应头
+	 * @param lastModified Last-Modified响应头
+	 * @param cacheControl Cache-Control响应头
+	 * @param expiresHeader Expires响应头解析得到的时间，没有时为0
+	 * @param dateHeader Date响应头解析得到的时间，没有时为0，用于修正和服务器的时钟差
+	 * @param now 收到响应的时间
+	 * @return
+	 */
+	public static CacheHeaders fromResponse(String etag, String lastModified, String cacheControl, long expiresHeader,
+			long dateHeader, long now) {
+		long expires = NO_EXPIRES;
+		long maxAgeSeconds = parseMaxAge(cacheControl);
+		if (maxAgeSeconds >= 0) {
+			expires = now + maxAgeSeconds * 1000;
+		} else if (expiresHeader > 0) {
+			expires = dateHeader > 0 ? now + (expiresHeader - dateHeader) : expiresHeader;
+		}
+		return new CacheHeaders(etag, lastModified, now, expires);
+	}
+
+	/**
+	 * 解析Cache-Control中的max-age，no-cache和no-store按0处理
+	 *
+	 * @param cacheControl
+	 * @return 没有时返回-1
+	 */
+	static long parseMaxAge(String cacheControl) {
+		if (cacheControl == null) {
+			return -1;
+		}
+		long maxAge = -1;
+		for (String directive : cacheControl.split(",")) {
+			directive = directive.trim().toLowerCase();
+			if (directive.equals("no-cache") || directive.equals("no-store")) {
+				return 0;
+			}
+			if (directive.startsWith("max-age=")) {
+				String value = directive.substring("max-age=".length()).trim();
+				if (value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2) {
+					value = value.substring(1, value.length() - 1);
+				}
+				try {
+					maxAge = Math.max(0, Long.parseLong(value));
+				} catch (NumberFormatException e) {
+					// 忽略无法解析的值
+				}
+			}
+		}
+		return maxAge;
+	}
+
+	/**
+	 * 转换为写入硬盘缓存的文本，每行一个值
+	 *
+	 * @return
+	 */
+	public String encode() {
+		return fetchedAt + "\n" + expires + "\n" + (etag != null ? etag : "") + "\n"
+				+ (lastModified != null ? lastModified : "") + "\n";
+	}
+
+	/**
+	 * 解析{@link #encode()}生成的文本
+	 *
+	 * @param text
+	 * @return 格式不正确时返回null
+	 */
+	public static CacheHeaders decode(String text) {
+		if (text == null) {
+			return null;
+		}
+		String[] lines = text.split("\n", -1);
+		if (lines.length < 4) {
+			return null;
+		}
+		try {
+			long fetchedAt = Long.parseLong(lines[0]);
+			long expires = Long.parseLong(lines[1]);
+			return new CacheHeaders(lines[2].length() > 0 ? lines[2] : null, lines[3].length() > 0 ? lines[3] : null,
+					fetchedAt, expires);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CacheHeaders[etag=" + etag + ", lastModified=" + lastModified + ", fetchedAt=" + fetchedAt + ", expires="
+				+ expires + "]";
+	}
+
+}
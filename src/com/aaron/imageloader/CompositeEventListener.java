@@ -0,0 +1,78 @@
+package com.aaron.imageloader;
+
+/**
+ * 将事件依次分发给两个监听器
+ * 
+ * @author Aaron
+ * 
+ */
+class CompositeEventListener implements LoaderEventListener {
+
+	private final LoaderEventListener first;
+	private final LoaderEventListener second;
+
+	CompositeEventListener(LoaderEventListener first, LoaderEventListener second) {
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * 合并两个监听器，任意一个为null时直接返回另一个
+	 * 
+	 * @param first
+	 * @param second
+	 * @return
+	 */
+	static LoaderEventListener combine(LoaderEventListener first, LoaderEventListener second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		return new CompositeEventListener(first, second);
+	}
+
+	@Override
+	public void onMemoryLookup(String key, boolean hit) {
+		first.onMemoryLookup(key, hit);
+		second.onMemoryLookup(key, hit);
+	}
+
+	@Override
+	public void onDiskLookup(String key, boolean hit) {
+		first.onDiskLookup(key, hit);
+		second.onDiskLookup(key, hit);
+	}
+
+	@Override
+	public void onDiskCommit(String key, long bytes) {
+		first.onDiskCommit(key, bytes);
+		second.onDiskCommit(key, bytes);
+	}
+
+	@Override
+	public void onDiskEviction(String key, long bytes) {
+		first.onDiskEviction(key, bytes);
+		second.onDiskEviction(key, bytes);
+	}
+
+	@Override
+	public void onDownload(String url, long bytes, long millis, boolean success) {
+		first.onDownload(url, bytes, millis, success);
+		second.onDownload(url, bytes, millis, success);
+	}
+
+	@Override
+	public void onDecode(String url, int width, int height, long millis) {
+		first.onDecode(url, width, height, millis);
+		second.onDecode(url, width, height, millis);
+	}
+
+	@Override
+	public void onError(String url, Throwable error) {
+		first.onError(url, error);
+		second.onError(url, error);
+	}
+
+}
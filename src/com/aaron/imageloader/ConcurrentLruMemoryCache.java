@@ -0,0 +1,238 @@
+package com.aaron.imageloader;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import android.graphics.Bitmap;
+
+/**
+ * 支持并发读写的内存缓存，读取不加锁，超出缓存预定值时按最近访问时间批量移除，是近似的Lru算法
+ * 
+ * @author Aaron
+ * 
+ */
+public class ConcurrentLruMemoryCache implements PooledMemoryCache {
+
+	/**
+	 * 每次移除后缓存空间降到预定值的比例，避免每次添加都触发移除
+	 */
+	private static final float TRIM_RATIO = 0.9f;
+
+	private final ConcurrentHashMap<String, Node> cache;
+
+	/**
+	 * 最大缓存空间
+	 */
+	private volatile int maxSize;
+
+	/**
+	 * 当前缓存空间
+	 */
+	private final AtomicInteger currentSize = new AtomicInteger();
+
+	/**
+	 * 同一时间只有一个线程执行移除
+	 */
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	/**
+	 * 被移除的Bitmap放入复用池，可以为null
+	 */
+	private volatile BitmapPoolAware bitmapPool;
+
+	public ConcurrentLruMemoryCache(int maxSize) {
+		this(maxSize, null);
+	}
+
+	public ConcurrentLruMemoryCache(int maxSize, BitmapPoolAware bitmapPool) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+		this.bitmapPool = bitmapPool;
+		this.cache = new ConcurrentHashMap<String, Node>(16, 0.75f, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public void setBitmapPool(BitmapPoolAware bitmapPool) {
+		this.bitmapPool = bitmapPool;
+	}
+
+	@Override
+	public boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+		Node node = new Node(value, sizeOf(key, value));
+		Node previous = cache.put(key, node);
+		int delta = previous != null ? node.size - previous.size : node.size;
+		if (currentSize.addAndGet(delta) > maxSize) {
+			trimIfNeeded();
+		}
+		return true;
+	}
+
+	@Override
+	public Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		Node node = cache.get(key);
+		if (node == null) {
+			return null;
+		}
+		node.accessTime = System.nanoTime();
+		return node.value;
+	}
+
+	@Override
+	public boolean containsKey(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		return cache.containsKey(key);
+	}
+
+	@Override
+	public void remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		Node previous = cache.remove(key);
+		if (previous != null) {
+			currentSize.addAndGet(-previous.size);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Map.Entry<String, Node> entry : cache.entrySet()) {
+			if (cache.remove(entry.getKey(), entry.getValue())) {
+				currentSize.addAndGet(-entry.getValue().size);
+			}
+		}
+	}
+
+	@Override
+	public Collection<String> keys() {
+		return new HashSet<String>(cache.keySet());
+	}
+
+	@Override
+	public int size() {
+		return currentSize.get();
+	}
+
+	@Override
+	public int maxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+		trimToSize(maxSize);
+	}
+
+	/**
+	 * 移除直到缓存空间不超过size，其他线程正在移除时等待其完成
+	 */
+	@Override
+	public void trimToSize(int size) {
+		evictionLock.lock();
+		try {
+			evict(size);
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * 返回图片大小
+	 * 
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	private int sizeOf(String key, Bitmap value) {
+		return value.getRowBytes() * value.getHeight();
+	}
+
+	/**
+	 * 超出缓存预定值时移除到预定值的{@link #TRIM_RATIO}。其他线程正在移除时直接返回
+	 */
+	private void trimIfNeeded() {
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			int max = maxSize;
+			if (currentSize.get() > max) {
+				evict((int) (max * TRIM_RATIO));
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * 按最近访问时间从早到晚移除，直到缓存空间不超过targetSize，需持有evictionLock
+	 * 
+	 * @param targetSize
+	 */
+	private void evict(int targetSize) {
+		if (currentSize.get() <= targetSize) {
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		Map.Entry<String, Node>[] entries = cache.entrySet().toArray(new Map.Entry[0]);
+		final long[] accessTimes = new long[entries.length];
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			// 排序期间访问时间可能变化，先记录下来
+			accessTimes[i] = entries[i].getValue().accessTime;
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				long l = accessTimes[lhs];
+				long r = accessTimes[rhs];
+				return l < r ? -1 : (l == r ? 0 : 1);
+			}
+		});
+		for (int i = 0; i < order.length && currentSize.get() > targetSize; i++) {
+			Map.Entry<String, Node> entry = entries[order[i]];
+			Node node = entry.getValue();
+			if (cache.remove(entry.getKey(), node)) {
+				currentSize.addAndGet(-node.size);
+				BitmapPoolAware pool = bitmapPool;
+				if (pool != null) {
+					pool.put(node.value);
+				}
+			}
+		}
+	}
+
+	private static final class Node {
+		private final Bitmap value;
+		private final int size;
+		private volatile long accessTime;
+
+		private Node(Bitmap value, int size) {
+			this.value = value;
+			this.size = size;
+			this.accessTime = System.nanoTime();
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.aaron.imageloader;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计查找、未命中、提交、移除等事件的次数
+ * 
+ * @author Aaron
+ * 
+ */
+public class CountingEventListener implements LoaderEventListener {
+
+	private final AtomicLong memoryLookups = new AtomicLong();
+	private final AtomicLong memoryMisses = new AtomicLong();
+	private final AtomicLong diskLookups = new AtomicLong();
+	private final AtomicLong diskMisses = new AtomicLong();
+	private final AtomicLong diskCommits = new AtomicLong();
+	private final AtomicLong diskEvictions = new AtomicLong();
+	private final AtomicLong downloads = new AtomicLong();
+	private final AtomicLong downloadFailures = new AtomicLong();
+	private final AtomicLong decodes = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	@Override
+	public void onMemoryLookup(String key, boolean hit) {
+		memoryLookups.incrementAndGet();
+		if (!hit) {
+			memoryMisses.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onDiskLookup(String key, boolean hit) {
+		diskLookups.incrementAndGet();
+		if (!hit) {
+			diskMisses.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onDiskCommit(String key, long bytes) {
+		diskCommits.incrementAndGet();
+	}
+
+	@Override
+	public void onDiskEviction(String key, long bytes) {
+		diskEvictions.incrementAndGet();
+	}
+
+	@Override
+	public void onDownload(String url, long bytes, long millis, boolean success) {
+		downloads.incrementAndGet();
+		if (!success) {
+			downloadFailures.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onDecode(String url, int width, int height, long millis) {
+		decodes.incrementAndGet();
+	}
+
+	@Override
+	public void onError(String url, Throwable error) {
+		errors.incrementAndGet();
+	}
+
+	public long getMemoryLookups() {
+		return memoryLookups.get();
+	}
+
+	public long getMemoryMisses() {
+		return memoryMisses.get();
+	}
+
+	public long getDiskLookups() {
+		return diskLookups.get();
+	}
+
+	public long getDiskMisses() {
+		return diskMisses.get();
+	}
+
+	public long getDiskCommits() {
+		return diskCommits.get();
+	}
+
+	public long getDiskEvictions() {
+		return diskEvictions.get();
+	}
+
+	public long getDownloads() {
+		return downloads.get();
+	}
+
+	public long getDownloadFailures() {
+		return downloadFailures.get();
+	}
+
+	public long getDecodes() {
+		return decodes.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * 清零所有计数
+	 */
+	public void reset() {
+		memoryLookups.set(0);
+		memoryMisses.set(0);
+		diskLookups.set(0);
+		diskMisses.set(0);
+		diskCommits.set(0);
+		diskEvictions.set(0);
+		downloads.set(0);
+		downloadFailures.set(0);
+		decodes.set(0);
+		errors.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "CountingEventListener[memoryLookups=" + memoryLookups + ",memoryMisses=" + memoryMisses + ",diskLookups="
+				+ diskLookups + ",diskMisses=" + diskMisses + ",diskCommits=" + diskCommits + ",diskEvictions="
+				+ diskEvictions + ",downloads=" + downloads + ",downloadFailures=" + downloadFailures + ",decodes="
+				+ decodes + ",errors=" + errors + "]";
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.aaron.imageloader;
+
+/**
+ * 解码尺寸计算，不依赖Android，可以在普通JVM中使用
+ * 
+ * <p>
+ * 先用2的幂采样解码到不小于目标尺寸的最小图片，再按精确比例缩放到目标尺寸
+ * 
+ * @author Aaron
+ * 
+ */
+public final class DecodeSizing {
+
+	private DecodeSizing() {
+	}
+
+	/**
+	 * 按{@link ScaleMode#FIT}计算inSampleSize
+	 * 
+	 * @param width 图片宽度
+	 * @param height 图片高度
+	 * @param reqWidth 目标宽度
+	 * @param reqHeight 目标高度
+	 * @return
+	 */
+	public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+		return calculateInSampleSize(width, height, reqWidth, reqHeight, ScaleMode.FIT);
+	}
+
+	/**
+	 * 计算最大的2的幂inSampleSize，采样后的图片仍不小于目标尺寸
+	 * 
+	 * @param width 图片宽度
+	 * @param height 图片高度
+	 * @param reqWidth 目标宽度
+	 * @param reqHeight 目标高度
+	 * @param scaleMode
+	 * @return
+	 */
+	public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight, ScaleMode scaleMode) {
+		float scale = calculateScale(width, height, reqWidth, reqHeight, scaleMode);
+		int inSampleSize = 1;
+		while (inSampleSize * 2 * scale <= 1) {
+			inSampleSize *= 2;
+		}
+		return inSampleSize;
+	}
+
+	/**
+	 * 计算图片缩放到目标尺寸的比例，不放大
+	 * 
+	 * @param width 图片宽度
+	 * @param height 图片高度
+	 * @param reqWidth 目标宽度
+	 * @param reqHeight 目标高度
+	 * @param scaleMode
+	 * @return 0到1之间，为1时不需要缩小
+	 */
+	public static float calculateScale(int width, int height, int reqWidth, int reqHeight, ScaleMode scaleMode) {
+		if (width <= 0 || height <= 0 || reqWidth <= 0 || reqHeight <= 0) {
+			return 1;
+		}
+		float widthScale = reqWidth * 1.0f / width;
+		float heightScale = reqHeight * 1.0f / height;
+		float scale = scaleMode == ScaleMode.FILL ? Math.max(widthScale, heightScale) : Math.min(widthScale,
+				heightScale);
+		return Math.min(1, scale);
+	}
+
+	/**
+	 * 采样后的尺寸，与解码器一样向上取整
+	 * 
+	 * @param size 图片宽度或高度
+	 * @param inSampleSize
+	 * @return
+	 */
+	public static int getSampledSize(int size, int inSampleSize) {
+		return (size + inSampleSize - 1) / inSampleSize;
+	}
+
+	/**
+	 * 缩放后的尺寸，至少为1
+	 * 
+	 * @param size 图片宽度或高度
+	 * @param scale
+	 * @return
+	 */
+	public static int getScaledSize(int size, float scale) {
+		return Math.max(1, Math.round(size * scale));
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.aaron.imageloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 图片下载方式，可以通过{@link ImageLoader#setDownloader(Downloader)}替换，默认使用{@link UrlConnectionDownloader}
+ *
+ * <p>
+ * 在网络线程池中调用，实现需要线程安全
+ *
+ * @author Aaron
+ *
+ */
+public interface Downloader {
+
+	/**
+	 * 请求图片，cached不为null时发送条件请求
+	 *
+	 * @param imageUrl
+	 * @param cached 硬盘缓存中已过期图片的校验信息，没有缓存时为null
+	 * @return 服务器返回的响应，调用方负责读取并关闭
+	 * @throws IOException 网络错误或服务器返回200和304以外的状态码
+	 */
+	Response open(String imageUrl, CacheHeaders cached) throws IOException;
+
+	/**
+	 * 下载结果
+	 */
+	final class Response {
+
+		private final InputStream body;
+
+		private final boolean notModified;
+
+		private final CacheHeaders headers;
+
+		/**
+		 * @param body 图片数据，notModified为true时为null
+		 * @param notModified 服务器是否返回304
+		 * @param headers 本次响应的校验信息
+		 */
+		public Response(InputStream body, boolean notModified, CacheHeaders headers) {
+			this.body = body;
+			this.notModified = notModified;
+			this.headers = headers;
+		}
+
+		public InputStream getBody() {
+			return body;
+		}
+
+		public boolean isNotModified() {
+			return notModified;
+		}
+
+		public CacheHeaders getHeaders() {
+			return headers;
+		}
+
+		/**
+		 * 关闭图片数据，读取到末尾后关闭时连接可以被复用
+		 */
+		public void close() {
+			if (body != null) {
+				try {
+					body.close();
+				} catch (IOException e) {
+					// 忽略
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.aaron.imageloader;
+
+/**
+ * 缓存移除策略，决定超出缓存预定值时移除哪个key，以及新的key是否允许放入缓存
+ * 
+ * <p>
+ * 由缓存在自身的锁内调用，实现不需要考虑线程安全
+ * 
+ * @author Aaron
+ * 
+ * @param <K>
+ */
+public interface EvictionPolicy<K> {
+
+	/**
+	 * 查找key，命中和未命中都会调用
+	 * @param key
+	 */
+	void onAccess(K key);
+
+	/**
+	 * 放入或替换key
+	 * @param key
+	 * @param weight 占用的缓存空间
+	 */
+	void onInsert(K key, int weight);
+
+	/**
+	 * 移除key
+	 * @param key
+	 */
+	void onRemove(K key);
+
+	/**
+	 * 返回下一个应被移除的key
+	 * @return 没有可移除的key时返回null
+	 */
+	K victim();
+
+	/**
+	 * 空间不足时，判断是否应移除victim以放入candidate
+	 * @param candidate 将要放入的key
+	 * @param victim 将被移除的key
+	 * @return 返回false时candidate不放入缓存
+	 */
+	boolean admit(K candidate, K victim);
+
+	/**
+	 * 清空
+	 */
+	void clear();
+
+}
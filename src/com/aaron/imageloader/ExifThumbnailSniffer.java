@@ -0,0 +1,217 @@
+package com.aaron.imageloader;
+
+/**
+ * 在下载过程中从JPEG开头的数据里查找EXIF缩略图，不依赖Android
+ *
+ * <p>
+ * EXIF位于第一个扫描段之前，只保存开头不超过{@link #MAX_HEADER_LENGTH}的数据，找到缩略图或确定没有后不再保存
+ *
+ * @author Aaron
+ *
+ */
+final class ExifThumbnailSniffer {
+
+	/**
+	 * 最多保存的开头数据长度，足够放下JFIF段和一个完整的APP1段
+	 */
+	static final int MAX_HEADER_LENGTH = 128 * 1024;
+
+	private static final int NEED_MORE = 0;
+	private static final int NOT_FOUND = 1;
+	private static final int FOUND = 2;
+
+	private static final int MARKER_SOI = 0xd8;
+	private static final int MARKER_EOI = 0xd9;
+	private static final int MARKER_SOS = 0xda;
+	private static final int MARKER_APP1 = 0xe1;
+
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT = 0x0201;
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT_LENGTH = 0x0202;
+
+	private byte[] buffer = new byte[8 * 1024];
+
+	private int length;
+
+	private boolean done;
+
+	private int thumbnailOffset = -1;
+
+	private int thumbnailLength;
+
+	/**
+	 * TIFF数据是否为大端字节序，解析时使用
+	 */
+	private boolean bigEndian;
+
+	/**
+	 * 追加下载的数据
+	 *
+	 * @param data
+	 * @param offset
+	 * @param count
+	 * @return 是否已结束查找，之后不需要再调用
+	 */
+	boolean append(byte[] data, int offset, int count) {
+		if (done) {
+			return true;
+		}
+		int n = Math.min(count, MAX_HEADER_LENGTH - length);
+		if (length + n > buffer.length) {
+			byte[] grown = new byte[Math.min(MAX_HEADER_LENGTH, Math.max(buffer.length * 2, length + n))];
+			System.arraycopy(buffer, 0, grown, 0, length);
+			buffer = grown;
+		}
+		System.arraycopy(data, offset, buffer, length, n);
+		length += n;
+		int result = parse();
+		if (result != NEED_MORE || length >= MAX_HEADER_LENGTH) {
+			done = true;
+			if (result != FOUND) {
+				buffer = null;
+			}
+		}
+		return done;
+	}
+
+	boolean hasThumbnail() {
+		return thumbnailOffset >= 0;
+	}
+
+	/**
+	 * 缩略图所在的数组，偏移和长度见{@link #getThumbnailOffset()}和{@link #getThumbnailLength()}
+	 *
+	 * @return
+	 */
+	byte[] getBuffer() {
+		return buffer;
+	}
+
+	int getThumbnailOffset() {
+		return thumbnailOffset;
+	}
+
+	int getThumbnailLength() {
+		return thumbnailLength;
+	}
+
+	private int parse() {
+		if (length < 2) {
+			return NEED_MORE;
+		}
+		if ((buffer[0] & 0xff) != 0xff || (buffer[1] & 0xff) != MARKER_SOI) {
+			return NOT_FOUND;
+		}
+		int position = 2;
+		while (true) {
+			if (position + 4 > length) {
+				return NEED_MORE;
+			}
+			if ((buffer[position] & 0xff) != 0xff) {
+				return NOT_FOUND;
+			}
+			int marker = buffer[position + 1] & 0xff;
+			if (marker == 0xff) {
+				// 填充字节
+				position++;
+				continue;
+			}
+			if (marker == MARKER_SOS || marker == MARKER_EOI) {
+				return NOT_FOUND;
+			}
+			int segmentLength = readUnsignedShort(position + 2, true);
+			int segmentEnd = position + 2 + segmentLength;
+			if (marker == MARKER_APP1 && isExifHeader(position + 4)) {
+				if (segmentEnd > length) {
+					return NEED_MORE;
+				}
+				return parseTiff(position + 10, segmentEnd);
+			}
+			position = segmentEnd;
+		}
+	}
+
+	private boolean isExifHeader(int position) {
+		if (position + 6 > length) {
+			// 数据不足时按EXIF处理，等待更多数据
+			return true;
+		}
+		return buffer[position] == 'E' && buffer[position + 1] == 'x' && buffer[position + 2] == 'i'
+				&& buffer[position + 3] == 'f' && buffer[position + 4] == 0 && buffer[position + 5] == 0;
+	}
+
+	/**
+	 * 解析APP1段中的TIFF数据，缩略图的位置记录在第二个IFD中
+	 *
+	 * @param tiff TIFF数据的起始位置
+	 * @param end APP1段的结束位置
+	 * @return
+	 */
+	private int parseTiff(int tiff, int end) {
+		if (tiff + 8 > end) {
+			return NOT_FOUND;
+		}
+		if (buffer[tiff] == 'I' && buffer[tiff + 1] == 'I') {
+			bigEndian = false;
+		} else if (buffer[tiff] == 'M' && buffer[tiff + 1] == 'M') {
+			bigEndian = true;
+		} else {
+			return NOT_FOUND;
+		}
+		if (readUnsignedShort(tiff + 2, bigEndian) != 42) {
+			return NOT_FOUND;
+		}
+		long ifd0 = readUnsignedInt(tiff + 4);
+		if (ifd0 < 8 || tiff + ifd0 + 2 > end) {
+			return NOT_FOUND;
+		}
+		int ifd0Position = (int) (tiff + ifd0);
+		int entryCount = readUnsignedShort(ifd0Position, bigEndian);
+		int nextPosition = ifd0Position + 2 + entryCount * 12;
+		if (nextPosition + 4 > end) {
+			return NOT_FOUND;
+		}
+		long ifd1 = readUnsignedInt(nextPosition);
+		if (ifd1 < 8 || tiff + ifd1 + 2 > end) {
+			return NOT_FOUND;
+		}
+		int ifd1Position = (int) (tiff + ifd1);
+		entryCount = readUnsignedShort(ifd1Position, bigEndian);
+		if (ifd1Position + 2 + entryCount * 12 > end) {
+			return NOT_FOUND;
+		}
+		long offset = -1;
+		long count = -1;
+		for (int i = 0; i < entryCount; i++) {
+			int entry = ifd1Position + 2 + i * 12;
+			int tag = readUnsignedShort(entry, bigEndian);
+			if (tag == TAG_JPEG_INTERCHANGE_FORMAT) {
+				offset = readUnsignedInt(entry + 8);
+			} else if (tag == TAG_JPEG_INTERCHANGE_FORMAT_LENGTH) {
+				count = readUnsignedInt(entry + 8);
+			}
+		}
+		if (offset <= 0 || count < 4 || tiff + offset + count > end) {
+			return NOT_FOUND;
+		}
+		int start = (int) (tiff + offset);
+		if ((buffer[start] & 0xff) != 0xff || (buffer[start + 1] & 0xff) != MARKER_SOI) {
+			return NOT_FOUND;
+		}
+		thumbnailOffset = start;
+		thumbnailLength = (int) count;
+		return FOUND;
+	}
+
+	private int readUnsignedShort(int position, boolean bigEndian) {
+		int b0 = buffer[position] & 0xff;
+		int b1 = buffer[position + 1] & 0xff;
+		return bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+	}
+
+	private long readUnsignedInt(int position) {
+		long high = readUnsignedShort(position, bigEndian);
+		long low = readUnsignedShort(position + 2, bigEndian);
+		return bigEndian ? (high << 16) | low : (low << 16) | high;
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.aaron.imageloader;
+
+/**
+ * 估算key访问频率的Count-Min Sketch，每个计数最大为15。累计记录次数达到采样数后所有计数减半，使过去的热点逐渐失效
+ * 
+ * @author Aaron
+ * 
+ */
+class FrequencySketch {
+
+	private static final int DEPTH = 4;
+
+	private static final int MAX_COUNT = 15;
+
+	private static final int[] SEEDS = { 0x97cb3127, 0xb4b82e29, 0x9e3779b9, 0x7f4a7c15 };
+
+	private final byte[][] table;
+
+	private final int mask;
+
+	private final int sampleSize;
+
+	private int additions;
+
+	/**
+	 * @param expectedSize
+	 *            预计缓存中的key数量
+	 */
+	FrequencySketch(int expectedSize) {
+		int width = 16;
+		while (width < expectedSize && width < (1 << 24)) {
+			width <<= 1;
+		}
+		table = new byte[DEPTH][width];
+		mask = width - 1;
+		sampleSize = 10 * width;
+	}
+
+	/**
+	 * 记录一次访问
+	 * 
+	 * @param key
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int i = 0; i < DEPTH; i++) {
+			int index = indexOf(hash, i);
+			if (table[i][index] < MAX_COUNT) {
+				table[i][index]++;
+				added = true;
+			}
+		}
+		if (added && ++additions >= sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * 返回估算的访问次数
+	 * 
+	 * @param key
+	 * @return
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < DEPTH; i++) {
+			frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+		}
+		return frequency;
+	}
+
+	void clear() {
+		for (byte[] row : table) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] = 0;
+			}
+		}
+		additions = 0;
+	}
+
+	/**
+	 * 所有计数减半
+	 */
+	private void reset() {
+		for (byte[] row : table) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] = (byte) (row[i] >>> 1);
+			}
+		}
+		additions /= 2;
+	}
+
+	private int indexOf(int hash, int i) {
+		int h = (hash + SEEDS[i]) * SEEDS[i];
+		h ^= h >>> 16;
+		return h & mask;
+	}
+
+	private static int spread(int hash) {
+		hash ^= hash >>> 17;
+		hash *= 0xed5ad4bb;
+		hash ^= hash >>> 11;
+		return hash;
+	}
+
+}
@@ -1,21 +1,31 @@
 package com.aaron.imageloader;
 
 import java.io.File;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.WeakHashMap;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager.NameNotFoundException;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
 import android.widget.ImageView;
 
 /**
@@ -26,34 +36,102 @@ import android.widget.ImageView;
  */
 public class ImageLoader {
 
-	private static ImageLoader imageLoader;
+	/**
+	 * getInstance返回的默认实例
+	 */
+	private static volatile ImageLoader imageLoader;
+
+	/**
+	 * 实例名称，用于线程命名
+	 */
+	private String name = "imageloader";
+
+	/**
+	 * 是否已调用过build
+	 */
+	private boolean built;
+
+	/**
+	 * 是否已调用过shutdown，与diskCache的设置一起由this保护
+	 */
+	private boolean shutdown;
 
 	private Context context;
 
 	/**
-	 * 异步任务执行者
+	 * 硬盘读取线程池
+	 */
+	private PriorityExecutor diskExecutor;
+
+	/**
+	 * 网络下载线程池
+	 */
+	private PriorityExecutor networkExecutor;
+
+	/**
+	 * 解码线程池
+	 */
+	private PriorityExecutor decodeExecutor;
+
+	/**
+	 * 主线程Handler，用于显示加载结果
 	 */
-	private Executor executor;
+	private Handler mainHandler;
 
 	/**
 	 * 加载任务集合
 	 */
-	public Set<BitmapWorkerTask> taskCollections;
+	private Set<BitmapWorkerTask> taskCollections;
+
+	/**
+	 * 正在执行的加载任务，key为图片地址加目标尺寸，相同请求共用同一个任务
+	 */
+	private Map<String, BitmapWorkerTask> inFlightTasks;
+
+	/**
+	 * ImageView当前绑定的任务，重新绑定时取消之前的任务
+	 */
+	private Map<ImageView, BitmapWorkerTask> viewTasks;
 
 	/**
-	 * 线程池大小默认100
+	 * 线程池大小默认100，等待队列无界，线程数不会超过核心线程数，已不再使用
 	 */
 	private int poolSize = 100;
 
 	/**
-	 * 核心线程数默认3
+	 * 网络下载线程数默认3
 	 */
 	private int coreTasks = 3;
 
+	/**
+	 * 硬盘读取线程数默认2
+	 */
+	private int diskThreads = 2;
+
+	/**
+	 * 解码线程数默认为CPU核数，最多4个
+	 */
+	private int decodeThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+
 	/**
 	 * 内存缓存
 	 */
-	public LruMemoryCache memoryCache;
+	private MemoryCacheAware<String, Bitmap> memoryCache;
+
+	/**
+	 * 内存缓存大小，以byte为单位，为0时按屏幕和最大可用内存计算
+	 */
+	private int memoryCacheSize;
+
+	/**
+	 * Bitmap复用池，内存缓存移除的Bitmap放入池中供解码复用
+	 */
+	BitmapPoolAware bitmapPool;
+
+	/**
+	 * 包装bitmapPool，记录ImageView正在显示的Bitmap，不把它们放入复用池
+	 */
+	private ViewAwareBitmapPool viewAwarePool;
 
 	/**
 	 * 硬盘缓存目录
@@ -63,22 +141,169 @@ public class ImageLoader {
 	/**
 	 * 硬盘缓存
 	 */
-	public LruDiskCache diskCache;
+	volatile LruDiskCache diskCache;
+
+	/**
+	 * 默认实例的硬盘缓存目录名
+	 */
+	private static final String DEFAULT_DISK_CACHE_NAME = "bitmap";
+
+	/**
+	 * 硬盘缓存目录名，多个实例需使用不同的目录
+	 */
+	private String diskCacheName = DEFAULT_DISK_CACHE_NAME;
+
+	/**
+	 * 硬盘缓存是否已打开，打开前的硬盘读取任务先保存在pendingDiskStages中
+	 */
+	private volatile boolean diskCacheReady;
+
+	/**
+	 * 等待硬盘缓存打开的硬盘读取任务
+	 */
+	private final List<PendingStage> pendingDiskStages = new ArrayList<PendingStage>();
+
+	/**
+	 * journal读取进度，0到1
+	 */
+	private volatile float diskCacheReplayProgress;
+
+	/**
+	 * 打开硬盘缓存的耗时，以毫秒为单位，未打开时为-1
+	 */
+	private volatile long diskCacheOpenTime = -1;
 
 	/**
 	 * 硬盘缓存大小，以M为单位
 	 */
 	private int diskCacheSize = 10;
 
+	/**
+	 * 硬盘缓存每个条目的值数量：图片数据和HTTP校验信息
+	 */
+	static final int DISK_CACHE_VALUE_COUNT = 2;
+
+	/**
+	 * 硬盘缓存条目中图片数据的位置
+	 */
+	static final int DISK_CACHE_INDEX_BODY = 0;
+
+	/**
+	 * 硬盘缓存条目中{@link CacheHeaders}的位置
+	 */
+	static final int DISK_CACHE_INDEX_HEADERS = 1;
+
+	/**
+	 * 服务器没有指定过期时间时，硬盘缓存的默认有效期，以毫秒为单位
+	 */
+	public static final long DEFAULT_MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * 硬盘缓存的默认有效期，过期后发送条件请求
+	 */
+	private volatile long defaultMaxAge = DEFAULT_MAX_AGE;
+
+	/**
+	 * 是否暂停加载，暂停时硬盘读取和网络下载阶段等待恢复
+	 */
+	private volatile boolean paused;
+
+	/**
+	 * 暂停期间等待恢复的阶段
+	 */
+	private final List<DeferredStage> deferredStages = new ArrayList<DeferredStage>();
+
+	/**
+	 * 下载时是否先显示JPEG中的EXIF缩略图
+	 */
+	private volatile boolean progressivePreview;
+
+	/**
+	 * 图片下载方式
+	 */
+	private volatile Downloader downloader = new UrlConnectionDownloader();
+
+	/**
+	 * 硬盘缓存是否使用二进制journal，条目很多时打开更快
+	 */
+	private boolean binaryJournal;
+
+	/**
+	 * 默认的Bitmap格式选择方式
+	 */
+	private volatile BitmapConfigPolicy bitmapConfigPolicy = BitmapConfigPolicy.ARGB_8888;
+
+	/**
+	 * 是否暂停使用内存缓存，暂停时不再放入新的图片
+	 */
+	private volatile boolean memoryCacheSuspended;
+
+	/**
+	 * 已注册的内存回收通知
+	 */
+	private MemoryTrimCallbacks memoryTrimCallbacks;
+
+	/**
+	 * 内存回收通知缩小内存缓存后，经过此时间没有新的通知则恢复原来的上限，以毫秒为单位
+	 */
+	private static final long MEMORY_CACHE_RESTORE_DELAY = 30 * 1000;
+
+	/**
+	 * 内存回收通知缩小前的内存缓存上限，没有缩小时为0
+	 */
+	private int untrimmedMemoryCacheSize;
+
+	private final Runnable restoreMemoryCache = new Runnable() {
+		@Override
+		public void run() {
+			restoreMemoryCacheSize();
+		}
+	};
+
+	/**
+	 * 最多记录已缓存尺寸的图片地址数量
+	 */
+	private static final int MAX_VARIANT_URLS = 1024;
+
+	/**
+	 * 内存缓存中每个图片地址已有的尺寸
+	 */
+	private final VariantIndex variantIndex = new VariantIndex(MAX_VARIANT_URLS);
+
+	/**
+	 * 缓存的图片地址到key的数量
+	 */
+	private static final int KEY_CACHE_COUNT = 256;
+
+	/**
+	 * 生成硬盘缓存的key
+	 */
+	private volatile KeyHasher keyHasher = new KeyHasher(KeyHasher.Algorithm.MD5, KEY_CACHE_COUNT);
+
+	/**
+	 * 使用者设置的事件监听器
+	 */
+	private LoaderEventListener userEventListener;
+
+	/**
+	 * 统计数据，未开启时为null
+	 */
+	private volatile StatsRecorder statsRecorder;
+
+	/**
+	 * 实际分发事件的监听器，由userEventListener和statsRecorder合并而成，为null时不做任何记录
+	 */
+	volatile LoaderEventListener eventListener;
+
 	/**
 	 * 加载中显示的图片
 	 */
-	public Bitmap loadingBitmap;
+	private Bitmap loadingBitmap;
 
 	/**
 	 * 加载失败显示的图片
 	 */
-	public Bitmap loadfaildBitmap;
+	private Bitmap loadfaildBitmap;
 
 	/**
 	 * 获取单例
@@ -87,36 +312,85 @@ public class ImageLoader {
 	 * @return
 	 */
 	public static ImageLoader getInstance(Context context) {
-		if (imageLoader == null) {
-			imageLoader = new ImageLoader(context);
+		ImageLoader instance = imageLoader;
+		if (instance == null) {
+			synchronized (ImageLoader.class) {
+				instance = imageLoader;
+				if (instance == null) {
+					instance = new ImageLoader(context);
+					imageLoader = instance;
+				}
+			}
 		}
-		return imageLoader;
+		return instance;
 	}
 
 	private ImageLoader(Context context) {
-		this.context = context;
+		// 使用Application，避免单例持有Activity
+		Context applicationContext = context.getApplicationContext();
+		this.context = applicationContext != null ? applicationContext : context;
 	}
-	
 
-	public void build() {
-		// 初始化线程池，核心线程数3 线程池大小100
-		executor = new ThreadPoolExecutor(coreTasks, poolSize, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+	/**
+	 * 初始化线程池和缓存，setXxx中注明需在build之前调用的设置在此时生效。只有第一次调用生效，之后重复调用直接返回，
+	 * 可以在每个Activity的onCreate中调用
+	 */
+	public synchronized void build() {
+		if (built) {
+			return;
+		}
+		built = true;
+		// 初始化硬盘、网络、解码三个线程池，等待中的任务按优先级执行，相同优先级后提交的先执行
+		diskExecutor = new PriorityExecutor(name + "-disk", diskThreads);
+		networkExecutor = new PriorityExecutor(name + "-network", coreTasks);
+		decodeExecutor = new PriorityExecutor(name + "-decode", decodeThreads);
+		mainHandler = new Handler(Looper.getMainLooper());
 		// 初始化任务集合
 		taskCollections = new HashSet<BitmapWorkerTask>();
-		// 获取应用的最大可用内存
-		int maxMemory = (int) Runtime.getRuntime().maxMemory();
-		int cacheSize = maxMemory / 8;
-		memoryCache = new LruMemoryCache(cacheSize);
-		try {
-			cacheDir = getDiskCacheDir(context, "bitmap");
-			if (!cacheDir.exists()) {
-				cacheDir.mkdirs();
-			}
-			// 创建LruDiskCache实例，初始化硬盘缓存
-			diskCache = LruDiskCache.open(cacheDir, getAppVersion(context), 1, diskCacheSize * 1024 * 1024);
-		} catch (Exception e) {
-			e.printStackTrace();
+		inFlightTasks = new HashMap<String, BitmapWorkerTask>();
+		viewTasks = new WeakHashMap<ImageView, BitmapWorkerTask>();
+		int cacheSize = memoryCacheSize > 0 ? memoryCacheSize : getDefaultMemoryCacheSize();
+		// inBitmap从3.0开始支持
+		if (bitmapPool == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			bitmapPool = new LruBitmapPool(cacheSize / 4);
+		}
+		if (bitmapPool != null && viewAwarePool == null) {
+			// 内存缓存移除的Bitmap可能仍在显示，复用会覆盖屏幕上的像素
+			viewAwarePool = new ViewAwareBitmapPool(bitmapPool);
+			bitmapPool = viewAwarePool;
+		}
+		if (memoryCache == null) {
+			memoryCache = new LruMemoryCache(cacheSize, bitmapPool);
+		} else if (memoryCache instanceof PooledMemoryCache) {
+			// 使用者的缓存创建时只能拿到未包装的复用池
+			((PooledMemoryCache) memoryCache).setBitmapPool(bitmapPool);
 		}
+		// 根据系统的内存回收通知缩小内存缓存
+		if (memoryTrimCallbacks == null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+			registerMemoryTrimCallbacks();
+		}
+		cacheDir = getDiskCacheDir(context, diskCacheName);
+		// 在后台打开硬盘缓存，打开前内存缓存可以正常使用，硬盘读取任务等待打开后执行
+		diskExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				long start = SystemClock.uptimeMillis();
+				try {
+					if (!cacheDir.exists()) {
+						cacheDir.mkdirs();
+					}
+					// 创建LruDiskCache实例，初始化硬盘缓存
+					if (!publishDiskCache(openDiskCache())) {
+						return;
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				diskCacheOpenTime = SystemClock.uptimeMillis() - start;
+				diskCacheReplayProgress = 1;
+				onDiskCacheReady();
+			}
+		}, Priority.IMMEDIATE);
 		if (loadingBitmap == null) {
 			setLoadingDrawable(R.drawable.pictures_no);
 		}
@@ -161,25 +435,125 @@ public class ImageLoader {
 	 *            加载失败的图片id
 	 */
 	public void display(final ImageView imageView, final String imageUrl, final int loadingResId, final int loadfailResId) {
+		display(imageView, imageUrl, loadingResId, loadfailResId, Priority.NORMAL);
+	}
+
+	/**
+	 * 按指定优先级加载图片
+	 * 
+	 * @param imageView
+	 *            图片空间
+	 * @param imageUrl
+	 *            图片地址
+	 * @param priority
+	 *            加载优先级
+	 */
+	public void display(ImageView imageView, String imageUrl, Priority priority) {
+		display(imageView, imageUrl, -1, -1, priority);
+	}
+
+	/**
+	 * 按指定优先级加载图片
+	 * 
+	 * @param imageView
+	 *            图片空间
+	 * @param imageUrl
+	 *            图片地址
+	 * @param loadingResId
+	 *            加载中的图片id
+	 * @param loadfailResId
+	 *            加载失败的图片id
+	 * @param priority
+	 *            加载优先级
+	 */
+	public void display(final ImageView imageView, final String imageUrl, final int loadingResId, final int loadfailResId,
+			final Priority priority) {
+		display(imageView, imageUrl, loadingResId, loadfailResId, priority, null);
+	}
+
+	/**
+	 * 按指定优先级和Bitmap格式加载图片
+	 * 
+	 * @param imageView
+	 *            图片空间
+	 * @param imageUrl
+	 *            图片地址
+	 * @param loadingResId
+	 *            加载中的图片id
+	 * @param loadfailResId
+	 *            加载失败的图片id
+	 * @param priority
+	 *            加载优先级
+	 * @param configPolicy
+	 *            Bitmap格式的选择方式，为null时使用{@link #setBitmapConfigPolicy(BitmapConfigPolicy)}的设置
+	 */
+	public void display(final ImageView imageView, final String imageUrl, final int loadingResId, final int loadfailResId,
+			final Priority priority, BitmapConfigPolicy configPolicy) {
+		if (configPolicy == null) {
+			configPolicy = bitmapConfigPolicy;
+		}
 		imageView.setTag(imageUrl);
 		if (imageView != null) {
 			if (loadingResId > 0) {
-				imageView.setImageResource(loadingResId);
+				setImageResource(imageView, loadingResId);
 			} else {
 				if (loadingBitmap != null) {
-					imageView.setImageBitmap(loadingBitmap);
+					setImageBitmap(imageView, loadingBitmap);
 				}
 			}
 		}
 		try {
-			Bitmap bitmap = getBitmapFromeMemoryCache(imageUrl);
+			ImageSize imageSize = BitmapUtil.getImageViewSize(imageView);
+			String requestKey = getRequestKey(imageUrl, imageSize, configPolicy);
+			Bitmap bitmap = getBitmapFromeMemoryCache(requestKey);
+			Bitmap larger = null;
 			if (bitmap == null) {
-				BitmapWorkerTask task = new BitmapWorkerTask(imageLoader, imageView);
-				taskCollections.add(task);
-				task.executeOnExecutor(executor, imageUrl);
-			} else {
-				if (imageView != null && imageView.getTag().toString().equals(imageUrl)) {
-					imageView.setImageBitmap(bitmap);
+				larger = getLargerVariant(imageUrl, imageSize, configPolicy);
+				if (larger != null
+						&& DecodeSizing.calculateScale(larger.getWidth(), larger.getHeight(), imageSize.width,
+								imageSize.height, imageSize.scaleMode) >= 1) {
+					// 更大尺寸的缓存实际不需要缩小，直接显示
+					bitmap = larger;
+				}
+			}
+			try {
+				if (bitmap == null) {
+					BitmapWorkerTask previous = viewTasks.get(imageView);
+					if (previous != null && requestKey.equals(previous.getRequestKey())
+							&& previous.addImageView(imageView)) {
+						// 重复绑定相同的请求
+						return;
+					}
+					cancelPreviousTask(imageView);
+					// 相同地址和尺寸的任务正在执行，直接挂到该任务上等待结果
+					BitmapWorkerTask task = inFlightTasks.get(requestKey);
+					if (task != null && task.addImageView(imageView)) {
+						// 可能是低优先级的预加载任务
+						task.raisePriority(priority);
+					} else {
+						task = new BitmapWorkerTask(this, imageView, imageUrl, imageSize, requestKey, priority,
+								configPolicy);
+						inFlightTasks.put(requestKey, task);
+						taskCollections.add(task);
+						if (larger != null) {
+							// 内存中有更大尺寸的缓存，缩小后使用，不再读取硬盘
+							task.startDownscale(larger);
+						} else {
+							task.start();
+						}
+					}
+					viewTasks.put(imageView, task);
+				} else {
+					cancelPreviousTask(imageView);
+					if (imageView != null && imageView.getTag().toString().equals(imageUrl)) {
+						setImageBitmap(imageView, bitmap);
+					}
+				}
+			} finally {
+				// 取出时已保留，显示后或交给缩小任务后释放
+				Bitmap held = bitmap != null ? bitmap : larger;
+				if (held != null) {
+					releaseBitmap(held);
 				}
 			}
 		} catch (Exception e) {
@@ -188,130 +562,527 @@ public class ImageLoader {
 	}
 
 	/**
-	 * 设置线程池大小
+	 * 以低优先级预加载图片到硬盘缓存，不需要ImageView，需在主线程调用
+	 * 
+	 * @param imageUrls
+	 *            图片地址
+	 * @param imageSize
+	 *            目标尺寸，之后display时ImageView的尺寸相同才能复用预加载的任务
+	 * @return 可以一起取消的任务组
+	 */
+	public PrefetchGroup prefetch(Collection<String> imageUrls, ImageSize imageSize) {
+		return prefetch(imageUrls, imageSize, Priority.LOW, false);
+	}
+
+	/**
+	 * 按指定优先级预加载图片到硬盘缓存，不需要ImageView，需在主线程调用
+	 * 
+	 * @param imageUrls
+	 *            图片地址
+	 * @param imageSize
+	 *            目标尺寸，之后display时ImageView的尺寸相同才能复用预加载的任务
+	 * @param priority
+	 *            加载优先级，一般使用{@link Priority#LOW}，排在可见图片之后
+	 * @return 可以一起取消的任务组
+	 */
+	public PrefetchGroup prefetch(Collection<String> imageUrls, ImageSize imageSize, Priority priority) {
+		return prefetch(imageUrls, imageSize, priority, false);
+	}
+
+	/**
+	 * 按指定优先级预加载图片，不需要ImageView，需在主线程调用
+	 * 
+	 * <p>
+	 * 正在加载或已在内存缓存中的图片跳过；预加载中的图片被display时，ImageView直接等待该任务的结果，并提高任务优先级
+	 * 
+	 * @param imageUrls
+	 *            图片地址
+	 * @param imageSize
+	 *            目标尺寸，之后display时ImageView的尺寸相同才能复用预加载的任务
+	 * @param priority
+	 *            加载优先级，一般使用{@link Priority#LOW}，排在可见图片之后
+	 * @param warmMemory
+	 *            是否同时解码放入内存缓存，否则只写入硬盘缓存
+	 * @return 可以一起取消的任务组
+	 */
+	public PrefetchGroup prefetch(Collection<String> imageUrls, ImageSize imageSize, Priority priority,
+			boolean warmMemory) {
+		PrefetchGroup group = new PrefetchGroup();
+		BitmapConfigPolicy configPolicy = bitmapConfigPolicy;
+		for (String imageUrl : imageUrls) {
+			if (imageUrl == null) {
+				continue;
+			}
+			String requestKey = getRequestKey(imageUrl, imageSize, configPolicy);
+			if (inFlightTasks.containsKey(requestKey) || memoryCache.containsKey(requestKey)) {
+				continue;
+			}
+			BitmapWorkerTask task = new BitmapWorkerTask(this, null, imageUrl, imageSize, requestKey, priority,
+					configPolicy, group, warmMemory);
+			inFlightTasks.put(requestKey, task);
+			taskCollections.add(task);
+			group.add(task);
+			task.start();
+		}
+		return group;
+	}
+
+	/**
+	 * 设置线程池大小，等待队列无界，线程数由各阶段线程数决定，该设置不再生效
 	 * 
 	 * @param poolSize
+	 * @deprecated 使用{@link #setCoreTasks(int)}、{@link #setDiskThreads(int)}、
+	 *             {@link #setDecodeThreads(int)}
 	 */
+	@Deprecated
 	public ImageLoader setPoolSize(int poolSize) {
 		this.poolSize = poolSize;
-		return imageLoader;
+		return this;
 	}
 
 	/**
-	 * 设置核心任务数量
+	 * 设置核心任务数量，即网络下载线程数
 	 * 
 	 * @param coreTasks
 	 */
 	public ImageLoader setCoreTasks(int coreTasks) {
 		this.coreTasks = coreTasks;
-		return imageLoader;
+		return this;
 	}
 
 	/**
-	 * 设置加载中图片
+	 * 设置硬盘读取线程数，需在build之前调用
 	 * 
-	 * @param resourceId
+	 * @param diskThreads
 	 */
-	public void setLoadingDrawable(int resourceId) {
-		loadingBitmap = getBitmapFormRes(resourceId);
+	public ImageLoader setDiskThreads(int diskThreads) {
+		this.diskThreads = diskThreads;
+		return this;
 	}
 
 	/**
-	 * 设置加载失败图片
+	 * 设置解码线程数，需在build之前调用
 	 * 
-	 * @param resourceId
+	 * @param decodeThreads
 	 */
-	public void setLoadFailDrawable(int resourceId) {
-		loadfaildBitmap = getBitmapFormRes(resourceId);
-	}
-
-	public Bitmap getBitmapFormRes(int resourceId) {
-		return BitmapFactory.decodeResource(context.getResources(), resourceId);
+	public ImageLoader setDecodeThreads(int decodeThreads) {
+		this.decodeThreads = decodeThreads;
+		return this;
 	}
 
 	/**
-	 * 将图片存储到memoryCache中
+	 * 设置图片下载方式，例如使用OkHttp等支持连接复用的客户端
 	 * 
-	 * @param key
-	 * @param value
+	 * @param downloader
 	 */
-	public void addBitmapToMemoryCache(String key, Bitmap value) {
-		if (getBitmapFromeMemoryCache(key) == null) {
-			memoryCache.put(key, value);
+	public ImageLoader setDownloader(Downloader downloader) {
+		if (downloader == null) {
+			throw new NullPointerException("downloader == null");
 		}
+		this.downloader = downloader;
+		return this;
+	}
+
+	public Downloader getDownloader() {
+		return downloader;
 	}
 
 	/**
-	 * 从memoryCache中获取一张图片
+	 * 设置服务器没有指定Cache-Control或Expires时硬盘缓存的有效期，过期后用ETag和Last-Modified校验，未修改时不再下载
 	 * 
-	 * @param key
-	 * @return
+	 * @param defaultMaxAge
+	 *            以毫秒为单位，默认{@link #DEFAULT_MAX_AGE}
 	 */
-	private Bitmap getBitmapFromeMemoryCache(String key) {
-		return memoryCache.get(key);
+	public ImageLoader setDefaultMaxAge(long defaultMaxAge) {
+		this.defaultMaxAge = defaultMaxAge;
+		return this;
 	}
 
-	/**
-	 * 取消所有下载或等待下载的任务
-	 */
-	public void cancleAllTasks() {
-		if (taskCollections != null) {
-			for (BitmapWorkerTask task : taskCollections) {
-				task.cancel(false);
-			}
-		}
+	public long getDefaultMaxAge() {
+		return defaultMaxAge;
 	}
 
 	/**
-	 * 使用MD5算法对传入的key进行加密并返回，避免url命名时存在不合法
+	 * 设置下载时是否先显示JPEG中的EXIF缩略图，缩略图在下载到开头部分时就能显示，完整图片解码后替换，适合慢速网络下的大图
 	 * 
-	 * @param key
-	 * @return
+	 * @param progressivePreview
 	 */
-	public String hashKeyForDisk(String key) {
-		String cacheKey;
-		try {
-			final MessageDigest mDigest = MessageDigest.getInstance("MD5");
-			mDigest.update(key.getBytes());
-			cacheKey = bytesToHexString(mDigest.digest());
-		} catch (NoSuchAlgorithmException e) {
-			cacheKey = String.valueOf(key.hashCode());
-		}
-		return cacheKey;
+	public ImageLoader setProgressivePreview(boolean progressivePreview) {
+		this.progressivePreview = progressivePreview;
+		return this;
 	}
 
-	public String bytesToHexString(byte[] bytes) {
-		StringBuilder sb = new StringBuilder();
-		String tmp = null;
-		for (byte b : bytes) {
-			tmp = Integer.toHexString(0xFF & b);
-			if (tmp.length() == 1) {
-				sb.append("0");
-			}
-			sb.append(tmp);
-		}
-		return sb.toString();
+	public boolean isProgressivePreview() {
+		return progressivePreview;
 	}
 
 	/**
-	 * 根据传入的uniqueName获得硬盘缓存地址
+	 * 返回硬盘读取线程池，可用于查看排队和执行中的任务数量
 	 * 
-	 * @param context
-	 * @param uniqueName
 	 * @return
 	 */
-	public File getDiskCacheDir(Context context, String uniqueName) {
-		String cachePath;
-		if (Environment.MEDIA_MOUNTED.equals(Environment.getExternalStorageState())) {
-			cachePath = context.getExternalCacheDir().getPath();
-		} else {
-			cachePath = context.getCacheDir().getPath();
-		}
-		return new File(cachePath + File.separator + uniqueName);
+	public PriorityExecutor getDiskExecutor() {
+		return diskExecutor;
 	}
 
 	/**
-	 * 获取当前系统版本号
+	 * 返回网络下载线程池，可用于查看排队和执行中的任务数量
+	 * 
+	 * @return
+	 */
+	public PriorityExecutor getNetworkExecutor() {
+		return networkExecutor;
+	}
+
+	/**
+	 * 返回解码线程池，可用于查看排队和执行中的任务数量
+	 * 
+	 * @return
+	 */
+	public PriorityExecutor getDecodeExecutor() {
+		return decodeExecutor;
+	}
+
+	Handler getMainHandler() {
+		return mainHandler;
+	}
+
+	/**
+	 * 设置内存缓存，需在build之前调用，例如多线程访问频繁时使用{@link ConcurrentLruMemoryCache}。实现了{@link PooledMemoryCache}
+	 * 的缓存在build时改为使用ImageLoader的复用池，创建时不需要传入
+	 * 
+	 * @param memoryCache
+	 */
+	public ImageLoader setMemoryCache(MemoryCacheAware<String, Bitmap> memoryCache) {
+		this.memoryCache = memoryCache;
+		return this;
+	}
+
+	/**
+	 * 设置Bitmap复用池，需在build之前调用。仍在ImageView上显示的Bitmap不会放入复用池，通过
+	 * {@link #setMemoryCache(MemoryCacheAware)}设置的{@link PooledMemoryCache}同样使用该复用池
+	 * 
+	 * @param bitmapPool
+	 */
+	public ImageLoader setBitmapPool(BitmapPoolAware bitmapPool) {
+		this.bitmapPool = bitmapPool;
+		return this;
+	}
+
+	/**
+	 * 返回build之后实际使用的复用池，会跳过仍在显示的Bitmap，没有复用池时为null
+	 * 
+	 * @return
+	 */
+	public BitmapPoolAware getBitmapPool() {
+		return bitmapPool;
+	}
+
+	/**
+	 * 显示图片并记录ImageView当前的Bitmap，需在主线程调用
+	 * 
+	 * @param imageView
+	 * @param bitmap
+	 */
+	void setImageBitmap(ImageView imageView, Bitmap bitmap) {
+		imageView.setImageBitmap(bitmap);
+		if (viewAwarePool != null) {
+			viewAwarePool.bind(imageView, bitmap);
+		}
+	}
+
+	/**
+	 * 后台线程开始读取Bitmap，读取结束前不放入复用池，需与{@link #releaseBitmap(Bitmap)}成对调用
+	 * 
+	 * @param bitmap
+	 */
+	void holdBitmap(Bitmap bitmap) {
+		if (viewAwarePool != null) {
+			viewAwarePool.hold(bitmap);
+		}
+	}
+
+	/**
+	 * 后台线程读取Bitmap结束
+	 * 
+	 * @param bitmap
+	 */
+	void releaseBitmap(Bitmap bitmap) {
+		if (viewAwarePool != null) {
+			viewAwarePool.release(bitmap);
+		}
+	}
+
+	/**
+	 * 显示资源图片，之前显示的Bitmap可以复用，需在主线程调用
+	 * 
+	 * @param imageView
+	 * @param resId
+	 */
+	void setImageResource(ImageView imageView, int resId) {
+		imageView.setImageResource(resId);
+		if (viewAwarePool != null) {
+			viewAwarePool.bind(imageView, null);
+		}
+	}
+
+	/**
+	 * 返回内存缓存，build之前为null
+	 * 
+	 * @return
+	 */
+	public MemoryCacheAware<String, Bitmap> getMemoryCache() {
+		return memoryCache;
+	}
+
+	/**
+	 * 返回硬盘缓存，尚未打开或打开失败时为null
+	 * 
+	 * @return
+	 */
+	public LruDiskCache getDiskCache() {
+		return diskCache;
+	}
+
+	/**
+	 * 返回正在执行的任务数量，需在主线程调用
+	 * 
+	 * @return
+	 */
+	public int getTaskCount() {
+		return taskCollections != null ? taskCollections.size() : 0;
+	}
+
+	public Bitmap getLoadingBitmap() {
+		return loadingBitmap;
+	}
+
+	public Bitmap getLoadFailBitmap() {
+		return loadfaildBitmap;
+	}
+
+	/**
+	 * 设置加载中图片
+	 * 
+	 * @param resourceId
+	 */
+	public void setLoadingDrawable(int resourceId) {
+		loadingBitmap = getBitmapFormRes(resourceId);
+	}
+
+	/**
+	 * 设置加载失败图片
+	 * 
+	 * @param resourceId
+	 */
+	public void setLoadFailDrawable(int resourceId) {
+		loadfaildBitmap = getBitmapFormRes(resourceId);
+	}
+
+	public Bitmap getBitmapFormRes(int resourceId) {
+		return BitmapFactory.decodeResource(context.getResources(), resourceId);
+	}
+
+	/**
+	 * 将图片存储到memoryCache中
+	 * 
+	 * @param key
+	 * @param value
+	 */
+	public void addBitmapToMemoryCache(String key, Bitmap value) {
+		if (memoryCacheSuspended) {
+			return;
+		}
+		// 不使用get检查，避免一次放入被移除策略计为两次访问
+		if (!memoryCache.containsKey(key)) {
+			memoryCache.put(key, value);
+		}
+	}
+
+	/**
+	 * 将解码得到的图片存储到memoryCache中，并记录该图片地址已有的尺寸
+	 * 
+	 * @param imageUrl
+	 * @param key
+	 * @param imageSize
+	 * @param configPolicy
+	 * @param value
+	 */
+	void addVariantToMemoryCache(String imageUrl, String key, ImageSize imageSize, BitmapConfigPolicy configPolicy,
+			Bitmap value) {
+		if (memoryCacheSuspended) {
+			return;
+		}
+		addBitmapToMemoryCache(key, value);
+		variantIndex.add(imageUrl, key, imageSize, configPolicy);
+	}
+
+	/**
+	 * 从memoryCache中取出图片并保留，需与{@link #releaseBitmap(Bitmap)}成对调用
+	 * 
+	 * <p>
+	 * 内存缓存在释放自身的锁之后才把移除的图片放入复用池，而复用池在放入时检查是否已保留，取出和保留都在复用池的锁内完成，
+	 * 因此不会出现取出后、显示前被移除并复用的情况
+	 * 
+	 * @param key
+	 * @return 没有时返回null
+	 */
+	private Bitmap getAndHoldBitmap(String key) {
+		if (viewAwarePool == null) {
+			return memoryCache.get(key);
+		}
+		synchronized (viewAwarePool) {
+			Bitmap bitmap = memoryCache.get(key);
+			if (bitmap != null) {
+				viewAwarePool.hold(bitmap);
+			}
+			return bitmap;
+		}
+	}
+
+	/**
+	 * 查找内存中同一图片地址宽高都不小于目标尺寸的缓存
+	 * 
+	 * @param imageUrl
+	 * @param imageSize
+	 * @param configPolicy
+	 * @return 没有时返回null，返回的图片已保留
+	 */
+	private Bitmap getLargerVariant(String imageUrl, ImageSize imageSize, BitmapConfigPolicy configPolicy) {
+		String key;
+		while ((key = variantIndex.findLarger(imageUrl, imageSize, configPolicy)) != null) {
+			Bitmap bitmap = getAndHoldBitmap(key);
+			if (bitmap != null) {
+				return bitmap;
+			}
+			// 已被内存缓存移除
+			variantIndex.remove(imageUrl, key);
+		}
+		return null;
+	}
+
+	/**
+	 * 从memoryCache中获取一张图片
+	 * 
+	 * @param key
+	 * @return 返回的图片已保留
+	 */
+	private Bitmap getBitmapFromeMemoryCache(String key) {
+		Bitmap bitmap = getAndHoldBitmap(key);
+		LoaderEventListener listener = eventListener;
+		if (listener != null) {
+			listener.onMemoryLookup(key, bitmap != null);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * 生成内存缓存和正在执行任务的key，由图片地址、目标尺寸和Bitmap格式的选择方式组成
+	 * 
+	 * @param imageUrl
+	 * @param imageSize
+	 * @param configPolicy
+	 * @return
+	 */
+	private String getRequestKey(String imageUrl, ImageSize imageSize, BitmapConfigPolicy configPolicy) {
+		return imageUrl + "#" + imageSize.width + "x" + imageSize.height
+				+ (imageSize.scaleMode == ScaleMode.FILL ? "-fill" : "-fit")
+				+ (configPolicy == BitmapConfigPolicy.RGB_565_IF_OPAQUE ? "-565" : "");
+	}
+
+	/**
+	 * 任务结束或取消后从集合中移除，需在主线程调用
+	 * 
+	 * @param task
+	 */
+	void removeTask(BitmapWorkerTask task) {
+		taskCollections.remove(task);
+		if (task.getPrefetchGroup() != null) {
+			task.getPrefetchGroup().onTaskFinished(task);
+		}
+		dropDeferredStages(task);
+		if (inFlightTasks.get(task.getRequestKey()) == task) {
+			inFlightTasks.remove(task.getRequestKey());
+		}
+		for (ImageView imageView : task.getImageViews()) {
+			if (viewTasks.get(imageView) == task) {
+				viewTasks.remove(imageView);
+			}
+		}
+	}
+
+	/**
+	 * ImageView重新绑定时，将其从之前的任务中移除，任务没有其他等待的ImageView时取消该任务，需在主线程调用
+	 * 
+	 * @param imageView
+	 */
+	private void cancelPreviousTask(ImageView imageView) {
+		BitmapWorkerTask previous = viewTasks.remove(imageView);
+		if (previous != null) {
+			previous.removeImageView(imageView);
+			if (!previous.hasImageViews() && previous.isCancellableWithoutViews()) {
+				previous.cancel();
+			}
+		}
+	}
+
+	/**
+	 * 取消所有下载或等待下载的任务
+	 */
+	public void cancleAllTasks() {
+		if (taskCollections != null) {
+			for (BitmapWorkerTask task : new ArrayList<BitmapWorkerTask>(taskCollections)) {
+				task.cancel();
+			}
+		}
+	}
+
+	/**
+	 * 将图片地址转换为硬盘缓存的key，避免url命名时存在不合法，计算方式见{@link #setKeyAlgorithm(KeyHasher.Algorithm)}
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public String hashKeyForDisk(String key) {
+		return keyHasher.hash(key);
+	}
+
+	/**
+	 * 旧版本使用的MD5 key，当前使用MD5时返回null
+	 * 
+	 * @param key
+	 * @return
+	 */
+	String legacyKeyForDisk(String key) {
+		if (keyHasher.getAlgorithm() == KeyHasher.Algorithm.MD5) {
+			return null;
+		}
+		return KeyHasher.md5(key);
+	}
+
+	public String bytesToHexString(byte[] bytes) {
+		return KeyHasher.bytesToHexString(bytes);
+	}
+
+	/**
+	 * 根据传入的uniqueName获得硬盘缓存地址
+	 * 
+	 * @param context
+	 * @param uniqueName
+	 * @return
+	 */
+	public File getDiskCacheDir(Context context, String uniqueName) {
+		String cachePath;
+		if (Environment.MEDIA_MOUNTED.equals(Environment.getExternalStorageState())) {
+			cachePath = context.getExternalCacheDir().getPath();
+		} else {
+			cachePath = context.getCacheDir().getPath();
+		}
+		return new File(cachePath + File.separator + uniqueName);
+	}
+
+	/**
+	 * 获取当前系统版本号
 	 * 
 	 * @param context
 	 * @return
@@ -333,7 +1104,449 @@ public class ImageLoader {
 	 */
 	public ImageLoader setDiskCacheSize(int diskCacheSize) {
 		this.diskCacheSize = diskCacheSize;
-		return imageLoader;
+		return this;
+	}
+
+	/**
+	 * 设置硬盘缓存是否使用二进制journal，需在build之前调用。已有的文本journal会在打开时转换
+	 * 
+	 * @param binaryJournal
+	 */
+	public ImageLoader setBinaryJournal(boolean binaryJournal) {
+		this.binaryJournal = binaryJournal;
+		return this;
+	}
+
+	/**
+	 * 设置默认的Bitmap格式选择方式，使用{@link BitmapConfigPolicy#RGB_565_IF_OPAQUE}时JPEG图片内存减半
+	 * 
+	 * @param bitmapConfigPolicy
+	 */
+	public ImageLoader setBitmapConfigPolicy(BitmapConfigPolicy bitmapConfigPolicy) {
+		if (bitmapConfigPolicy == null) {
+			throw new NullPointerException("bitmapConfigPolicy == null");
+		}
+		this.bitmapConfigPolicy = bitmapConfigPolicy;
+		return this;
+	}
+
+	public BitmapConfigPolicy getBitmapConfigPolicy() {
+		return bitmapConfigPolicy;
+	}
+
+	/**
+	 * 默认的内存缓存大小：最大可用内存的1/8，屏幕较大时放大到能放下约4屏图片，但不超过最大可用内存的1/4
+	 * 
+	 * @return
+	 */
+	private int getDefaultMemoryCacheSize() {
+		// 获取应用的最大可用内存
+		int maxMemory = (int) Runtime.getRuntime().maxMemory();
+		DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+		long screenBytes = (long) displayMetrics.widthPixels * displayMetrics.heightPixels * 4;
+		return (int) Math.max(maxMemory / 8, Math.min(screenBytes * 4, maxMemory / 4));
+	}
+
+	@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+	private void registerMemoryTrimCallbacks() {
+		memoryTrimCallbacks = new MemoryTrimCallbacks(this);
+		context.getApplicationContext().registerComponentCallbacks(memoryTrimCallbacks);
+	}
+
+	@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+	private void unregisterMemoryTrimCallbacks() {
+		context.getApplicationContext().unregisterComponentCallbacks(memoryTrimCallbacks);
+		memoryTrimCallbacks = null;
+	}
+
+	/**
+	 * 按系统内存回收级别缩小内存缓存，取值同{@link ComponentCallbacks2#onTrimMemory(int)}。API
+	 * 14以下可以在Activity的onLowMemory中以{@link ComponentCallbacks2#TRIM_MEMORY_COMPLETE}调用
+	 * 
+	 * <ul>
+	 * <li>进入后台及以上：清空内存缓存</li>
+	 * <li>界面隐藏或前台内存严重不足：内存缓存上限减半</li>
+	 * <li>前台内存不足：内存缓存上限减为3/4</li>
+	 * </ul>
+	 * 
+	 * 内存缓存移除的图片会放入复用池，因此同时清空复用池。缩小后{@value #MEMORY_CACHE_RESTORE_DELAY}
+	 * 毫秒内没有新的通知时恢复原来的上限
+	 * 
+	 * @param level
+	 */
+	public synchronized void trimMemory(int level) {
+		if (!built) {
+			return;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			memoryCache.trimToSize(0);
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+				|| level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			shrinkMemoryCache(1, 2);
+		} else if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			shrinkMemoryCache(3, 4);
+		} else {
+			return;
+		}
+		if (bitmapPool != null) {
+			bitmapPool.clear();
+		}
+	}
+
+	/**
+	 * 将内存缓存上限缩小为缩小前的numerator/denominator，已经更小时不变，并延后恢复
+	 * 
+	 * @param numerator
+	 * @param denominator
+	 */
+	private void shrinkMemoryCache(int numerator, int denominator) {
+		if (untrimmedMemoryCacheSize == 0) {
+			untrimmedMemoryCacheSize = memoryCache.maxSize();
+		}
+		int maxSize = (int) ((long) untrimmedMemoryCacheSize * numerator / denominator);
+		if (maxSize > 0 && maxSize < memoryCache.maxSize()) {
+			memoryCache.setMaxSize(maxSize);
+		}
+		mainHandler.removeCallbacks(restoreMemoryCache);
+		mainHandler.postDelayed(restoreMemoryCache, MEMORY_CACHE_RESTORE_DELAY);
+	}
+
+	/**
+	 * 恢复内存回收通知缩小前的内存缓存上限
+	 */
+	private synchronized void restoreMemoryCacheSize() {
+		if (untrimmedMemoryCacheSize > 0) {
+			memoryCache.setMaxSize(untrimmedMemoryCacheSize);
+			untrimmedMemoryCacheSize = 0;
+		}
+	}
+
+	/**
+	 * 设置内存缓存大小，build之后调用时立即调整，缩小时移除超出的图片，并取消内存回收通知引起的缩小
+	 * 
+	 * @param maxSize
+	 *            以byte为单位
+	 */
+	public synchronized ImageLoader setMemoryCacheSize(int maxSize) {
+		this.memoryCacheSize = maxSize;
+		if (memoryCache != null) {
+			untrimmedMemoryCacheSize = 0;
+			memoryCache.setMaxSize(maxSize);
+		}
+		return this;
+	}
+
+	/**
+	 * 设置硬盘缓存目录名，同时使用多个实例时每个实例需使用不同的目录，需在build之前调用
+	 * 
+	 * @param diskCacheName
+	 */
+	public ImageLoader setDiskCacheName(String diskCacheName) {
+		this.diskCacheName = diskCacheName;
+		return this;
+	}
+
+	/**
+	 * 设置实例名称，用于线程命名，需在build之前调用
+	 * 
+	 * @param name
+	 */
+	public ImageLoader setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * 暂停使用内存缓存，清空已有图片，之后解码的图片不再放入，直到调用{@link #resumeMemoryCache()}
+	 */
+	public void suspendMemoryCache() {
+		memoryCacheSuspended = true;
+		if (memoryCache != null) {
+			memoryCache.trimToSize(0);
+		}
+	}
+
+	/**
+	 * 恢复使用内存缓存
+	 */
+	public void resumeMemoryCache() {
+		memoryCacheSuspended = false;
+	}
+
+	public boolean isMemoryCacheSuspended() {
+		return memoryCacheSuspended;
+	}
+
+	/**
+	 * 设置硬盘缓存key的计算方式，默认为MD5。改为{@link KeyHasher.Algorithm#MURMUR3_128}后，已有的MD5缓存在第一次读取时改名，不需要重新下载
+	 * 
+	 * @param algorithm
+	 */
+	public ImageLoader setKeyAlgorithm(KeyHasher.Algorithm algorithm) {
+		this.keyHasher = new KeyHasher(algorithm, KEY_CACHE_COUNT);
+		return this;
+	}
+
+	/**
+	 * 设置事件监听器，用于记录缓存命中、下载、解码等事件，传入null关闭记录
+	 * 
+	 * @param eventListener
+	 */
+	public ImageLoader setEventListener(LoaderEventListener eventListener) {
+		this.userEventListener = eventListener;
+		updateEventListener();
+		return this;
+	}
+
+	/**
+	 * 开启或关闭统计，关闭时已有的统计数据清零
+	 * 
+	 * @param enabled
+	 */
+	public ImageLoader setStatsEnabled(boolean enabled) {
+		if (enabled && statsRecorder == null) {
+			statsRecorder = new StatsRecorder();
+		} else if (!enabled) {
+			statsRecorder = null;
+		}
+		updateEventListener();
+		return this;
+	}
+
+	/**
+	 * 获取当前的统计数据，包括缓存命中率、下载和解码耗时分布、缓存占用和线程池状态
+	 * 
+	 * @return
+	 */
+	public ImageLoaderStats getStats() {
+		return new ImageLoaderStats(statsRecorder, memoryCache, diskCache, diskExecutor, networkExecutor,
+				decodeExecutor);
+	}
+
+	/**
+	 * 统计数据清零
+	 */
+	public void resetStats() {
+		StatsRecorder recorder = statsRecorder;
+		if (recorder != null) {
+			recorder.reset();
+		}
+	}
+
+	/**
+	 * 合并使用者的监听器和统计，分发给硬盘缓存
+	 */
+	private synchronized void updateEventListener() {
+		eventListener = CompositeEventListener.combine(userEventListener, statsRecorder);
+		LruDiskCache cache = diskCache;
+		if (cache != null) {
+			cache.setEventListener(eventListener);
+		}
+	}
+
+	/**
+	 * 打开硬盘缓存
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	private LruDiskCache openDiskCache() throws IOException {
+		LruDiskCache cache = LruDiskCache.open(cacheDir, getAppVersion(context), DISK_CACHE_VALUE_COUNT, diskCacheSize * 1024 * 1024, binaryJournal,
+				new LruDiskCache.ReplayListener() {
+					@Override
+					public void onReplayProgress(long bytesRead, long totalBytes) {
+						diskCacheReplayProgress = totalBytes > 0 ? (float) bytesRead / totalBytes : 1;
+					}
+				});
+		cache.setEventListener(eventListener);
+		return cache;
+	}
+
+	/**
+	 * 暂停加载，例如列表快速滑动时。内存缓存中的图片仍然直接显示，硬盘读取和网络下载等待{@link #resume()}后执行，
+	 * 期间ImageView重新绑定的请求直接丢弃
+	 */
+	public void pause() {
+		paused = true;
+	}
+
+	/**
+	 * 恢复加载，执行暂停期间仍有ImageView等待的请求
+	 */
+	public void resume() {
+		List<DeferredStage> stages;
+		synchronized (deferredStages) {
+			paused = false;
+			stages = new ArrayList<DeferredStage>(deferredStages);
+			deferredStages.clear();
+		}
+		// 空闲线程按提交顺序开始执行，暂停期间提高了优先级的任务先提交
+		Collections.sort(stages, DEFERRED_STAGE_ORDER);
+		for (DeferredStage stage : stages) {
+			if (stage.task.isCancelled()) {
+				stage.task.releaseDeferred();
+			} else {
+				stage.resume.run();
+			}
+		}
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * 暂停时保存任务接下来的阶段，恢复后执行
+	 * 
+	 * @param task
+	 * @param resume
+	 *            恢复时提交该阶段
+	 * @return 是否已保存，未暂停时返回false
+	 */
+	boolean deferIfPaused(BitmapWorkerTask task, Runnable resume) {
+		if (!paused) {
+			return false;
+		}
+		synchronized (deferredStages) {
+			if (!paused) {
+				return false;
+			}
+			deferredStages.add(new DeferredStage(task, resume));
+			return true;
+		}
+	}
+
+	/**
+	 * 任务结束或取消后移除其等待恢复的阶段
+	 * 
+	 * @param task
+	 */
+	private void dropDeferredStages(BitmapWorkerTask task) {
+		synchronized (deferredStages) {
+			for (int i = deferredStages.size() - 1; i >= 0; i--) {
+				if (deferredStages.get(i).task == task) {
+					deferredStages.remove(i);
+					task.releaseDeferred();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 按任务当前的优先级从高到低排列等待恢复的阶段
+	 */
+	private static final Comparator<DeferredStage> DEFERRED_STAGE_ORDER = new Comparator<DeferredStage>() {
+		@Override
+		public int compare(DeferredStage lhs, DeferredStage rhs) {
+			return rhs.task.getPriority().ordinal() - lhs.task.getPriority().ordinal();
+		}
+	};
+
+	/**
+	 * 暂停期间等待恢复的阶段，恢复时按任务当前的优先级提交
+	 */
+	private static class DeferredStage {
+		private final BitmapWorkerTask task;
+		private final Runnable resume;
+
+		private DeferredStage(BitmapWorkerTask task, Runnable resume) {
+			this.task = task;
+			this.resume = resume;
+		}
+	}
+
+	/**
+	 * 执行硬盘读取任务，硬盘缓存未打开时先保存，打开后再执行
+	 * 
+	 * @param stage
+	 * @param priority
+	 */
+	void executeDiskStage(Runnable stage, Priority priority) {
+		synchronized (pendingDiskStages) {
+			if (!diskCacheReady) {
+				pendingDiskStages.add(new PendingStage(stage, priority));
+				return;
+			}
+		}
+		diskExecutor.execute(stage, priority);
+	}
+
+	/**
+	 * 提高等待硬盘缓存打开的硬盘读取任务的优先级
+	 * 
+	 * @param stage
+	 * @param priority
+	 * @return 是否在等待中
+	 */
+	boolean reprioritizePendingDiskStage(Runnable stage, Priority priority) {
+		synchronized (pendingDiskStages) {
+			for (PendingStage pending : pendingDiskStages) {
+				if (pending.stage == stage) {
+					pending.priority = priority;
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * 硬盘缓存打开后，执行等待中的硬盘读取任务
+	 */
+	private void onDiskCacheReady() {
+		List<PendingStage> stages;
+		synchronized (pendingDiskStages) {
+			diskCacheReady = true;
+			stages = new ArrayList<PendingStage>(pendingDiskStages);
+			pendingDiskStages.clear();
+		}
+		for (PendingStage pending : stages) {
+			diskExecutor.execute(pending.stage, pending.priority);
+		}
+	}
+
+	/**
+	 * 硬盘缓存是否已打开
+	 * 
+	 * @return
+	 */
+	public boolean isDiskCacheReady() {
+		return diskCacheReady;
+	}
+
+	/**
+	 * 返回打开硬盘缓存时journal的读取进度，0到1
+	 * 
+	 * @return
+	 */
+	public float getDiskCacheReplayProgress() {
+		return diskCacheReplayProgress;
+	}
+
+	/**
+	 * 返回打开硬盘缓存的耗时，以毫秒为单位，未打开时返回-1
+	 * 
+	 * @return
+	 */
+	public long getDiskCacheOpenTime() {
+		return diskCacheOpenTime;
+	}
+
+	/**
+	 * 等待硬盘缓存打开的任务
+	 */
+	private static class PendingStage {
+		private final Runnable stage;
+		private Priority priority;
+
+		private PendingStage(Runnable stage, Priority priority) {
+			this.stage = stage;
+			this.priority = priority;
+		}
 	}
 
 	/**
@@ -361,6 +1574,27 @@ public class ImageLoader {
 		}
 	}
 
+	/**
+	 * 使用新打开的硬盘缓存，实例已释放时直接关闭，打开文件的IO不响应中断，shutdown时可能仍在打开
+	 * 
+	 * @param cache
+	 * @return 是否已使用
+	 */
+	private boolean publishDiskCache(LruDiskCache cache) {
+		synchronized (this) {
+			if (!shutdown) {
+				diskCache = cache;
+				return true;
+			}
+		}
+		try {
+			cache.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
 	/**
 	 * 清空缓存
 	 */
@@ -369,7 +1603,7 @@ public class ImageLoader {
 			try {
 				diskCache.delete();
 				// 恢复LruDiskCache实例，初始化硬盘缓存
-				diskCache = LruDiskCache.open(cacheDir, getAppVersion(context), 1, diskCacheSize * 1024 * 1024);
+				publishDiskCache(openDiskCache());
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
@@ -389,4 +1623,238 @@ public class ImageLoader {
 		}
 	}
 
+	/**
+	 * 释放实例：取消所有任务，停止线程池，注销内存回收通知，清空内存缓存和复用池并关闭硬盘缓存。需在主线程调用，之后不能再使用该实例，
+	 * 默认实例释放后getInstance会创建新的实例
+	 */
+	public synchronized void shutdown() {
+		if (!built || shutdown) {
+			return;
+		}
+		shutdown = true;
+		synchronized (ImageLoader.class) {
+			if (imageLoader == this) {
+				imageLoader = null;
+			}
+		}
+		cancleAllTasks();
+		diskExecutor.shutdownNow();
+		networkExecutor.shutdownNow();
+		decodeExecutor.shutdownNow();
+		if (memoryTrimCallbacks != null) {
+			unregisterMemoryTrimCallbacks();
+		}
+		mainHandler.removeCallbacks(restoreMemoryCache);
+		memoryCache.trimToSize(0);
+		if (bitmapPool != null) {
+			bitmapPool.clear();
+		}
+		closeCache();
+	}
+
+	/**
+	 * 创建独立的ImageLoader实例，每个实例有自己的线程池、内存缓存、复用池和硬盘缓存目录，例如头像和大图分别使用不同的配置
+	 * 
+	 * <pre>
+	 * ImageLoader avatarLoader = new ImageLoader.Builder(context).name(&quot;avatar&quot;).diskCacheName(&quot;avatar&quot;)
+	 * 		.memoryCacheSize(4 * 1024 * 1024).diskCacheSize(5).build();
+	 * </pre>
+	 * 
+	 * 必须设置name；未设置diskCacheName时使用"bitmap-"加name，不与默认实例共用目录；未设置memoryCacheSize时只使用最大可用内存的1/
+	 * {@value #DEFAULT_MEMORY_CACHE_DIVISOR}，避免多个实例和默认实例加起来占满内存。其他未设置的项使用与
+	 * {@link ImageLoader#getInstance(Context)}相同的默认值。不再使用时调用{@link ImageLoader#shutdown()}
+	 */
+	public static class Builder {
+
+		/**
+		 * 未设置内存缓存大小时，内存缓存占最大可用内存的比例的倒数，复用池为内存缓存的1/4
+		 */
+		public static final int DEFAULT_MEMORY_CACHE_DIVISOR = 16;
+
+		private final Context context;
+		private String name;
+		private String diskCacheName;
+		private int diskCacheSize;
+		private int memoryCacheSize;
+		private MemoryCacheAware<String, Bitmap> memoryCache;
+		private BitmapPoolAware bitmapPool;
+		private int networkThreads;
+		private int diskThreads;
+		private int decodeThreads;
+		private Downloader downloader;
+		private KeyHasher.Algorithm keyAlgorithm;
+		private boolean binaryJournal;
+		private BitmapConfigPolicy bitmapConfigPolicy;
+		private LoaderEventListener eventListener;
+		private boolean statsEnabled;
+		private long defaultMaxAge = DEFAULT_MAX_AGE;
+		private boolean progressivePreview;
+
+		public Builder(Context context) {
+			if (context == null) {
+				throw new NullPointerException("context == null");
+			}
+			this.context = context;
+		}
+
+		/**
+		 * 实例名称，用于线程命名和默认的硬盘缓存目录名，必须设置
+		 * 
+		 * @param name
+		 */
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		/**
+		 * 硬盘缓存目录名，不能与其他实例相同
+		 * 
+		 * @param diskCacheName
+		 */
+		public Builder diskCacheName(String diskCacheName) {
+			this.diskCacheName = diskCacheName;
+			return this;
+		}
+
+		/**
+		 * @param diskCacheSize
+		 *            以M为单位
+		 */
+		public Builder diskCacheSize(int diskCacheSize) {
+			this.diskCacheSize = diskCacheSize;
+			return this;
+		}
+
+		/**
+		 * @param memoryCacheSize
+		 *            以byte为单位
+		 */
+		public Builder memoryCacheSize(int memoryCacheSize) {
+			this.memoryCacheSize = memoryCacheSize;
+			return this;
+		}
+
+		public Builder memoryCache(MemoryCacheAware<String, Bitmap> memoryCache) {
+			this.memoryCache = memoryCache;
+			return this;
+		}
+
+		public Builder bitmapPool(BitmapPoolAware bitmapPool) {
+			this.bitmapPool = bitmapPool;
+			return this;
+		}
+
+		/**
+		 * 网络下载线程数
+		 * 
+		 * @param networkThreads
+		 */
+		public Builder networkThreads(int networkThreads) {
+			this.networkThreads = networkThreads;
+			return this;
+		}
+
+		public Builder diskThreads(int diskThreads) {
+			this.diskThreads = diskThreads;
+			return this;
+		}
+
+		public Builder decodeThreads(int decodeThreads) {
+			this.decodeThreads = decodeThreads;
+			return this;
+		}
+
+		public Builder downloader(Downloader downloader) {
+			this.downloader = downloader;
+			return this;
+		}
+
+		public Builder keyAlgorithm(KeyHasher.Algorithm keyAlgorithm) {
+			this.keyAlgorithm = keyAlgorithm;
+			return this;
+		}
+
+		public Builder binaryJournal(boolean binaryJournal) {
+			this.binaryJournal = binaryJournal;
+			return this;
+		}
+
+		public Builder bitmapConfigPolicy(BitmapConfigPolicy bitmapConfigPolicy) {
+			this.bitmapConfigPolicy = bitmapConfigPolicy;
+			return this;
+		}
+
+		public Builder eventListener(LoaderEventListener eventListener) {
+			this.eventListener = eventListener;
+			return this;
+		}
+
+		public Builder statsEnabled(boolean statsEnabled) {
+			this.statsEnabled = statsEnabled;
+			return this;
+		}
+
+		/**
+		 * @param defaultMaxAge
+		 *            以毫秒为单位
+		 */
+		public Builder defaultMaxAge(long defaultMaxAge) {
+			this.defaultMaxAge = defaultMaxAge;
+			return this;
+		}
+
+		public Builder progressivePreview(boolean progressivePreview) {
+			this.progressivePreview = progressivePreview;
+			return this;
+		}
+
+		/**
+		 * 创建并初始化实例，每次调用返回新的实例
+		 * 
+		 * @return
+		 * @throws IllegalStateException
+		 *             没有设置name，或硬盘缓存目录与默认实例相同
+		 */
+		public ImageLoader build() {
+			if (name == null) {
+				throw new IllegalStateException("name == null");
+			}
+			String cacheName = diskCacheName != null ? diskCacheName : "bitmap-" + name;
+			if (cacheName.equals(DEFAULT_DISK_CACHE_NAME)) {
+				throw new IllegalStateException("diskCacheName is used by the default instance: " + cacheName);
+			}
+			ImageLoader loader = new ImageLoader(context);
+			loader.setName(name).setDiskCacheName(cacheName);
+			if (diskCacheSize > 0) {
+				loader.setDiskCacheSize(diskCacheSize);
+			}
+			loader.setMemoryCacheSize(memoryCacheSize > 0 ? memoryCacheSize
+					: (int) (Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_CACHE_DIVISOR));
+			if (networkThreads > 0) {
+				loader.setCoreTasks(networkThreads);
+			}
+			if (diskThreads > 0) {
+				loader.setDiskThreads(diskThreads);
+			}
+			if (decodeThreads > 0) {
+				loader.setDecodeThreads(decodeThreads);
+			}
+			if (downloader != null) {
+				loader.setDownloader(downloader);
+			}
+			if (keyAlgorithm != null) {
+				loader.setKeyAlgorithm(keyAlgorithm);
+			}
+			if (bitmapConfigPolicy != null) {
+				loader.setBitmapConfigPolicy(bitmapConfigPolicy);
+			}
+			loader.setMemoryCache(memoryCache).setBitmapPool(bitmapPool).setBinaryJournal(binaryJournal)
+					.setEventListener(eventListener).setStatsEnabled(statsEnabled).setDefaultMaxAge(defaultMaxAge)
+					.setProgressivePreview(progressivePreview);
+			loader.build();
+			return loader;
+		}
+	}
+
 }
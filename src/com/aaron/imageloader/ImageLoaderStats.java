@@ -0,0 +1,271 @@
+package com.aaron.imageloader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+
+/**
+ * 某一时刻的加载统计，由{@link ImageLoader#getStats()}生成，生成后不再变化
+ * 
+ * <p>
+ * 计数类数据需先调用{@link ImageLoader#setStatsEnabled(boolean)}开启，缓存占用和线程池状态总是有效
+ * 
+ * @author Aaron
+ * 
+ */
+public class ImageLoaderStats {
+
+	private final long memoryHits;
+	private final long memoryMisses;
+	private final long diskHits;
+	private final long diskMisses;
+	private final long diskCommits;
+	private final long diskEvictions;
+	private final long downloads;
+	private final long downloadFailures;
+	private final long bytesDownloaded;
+	private final long decodes;
+	private final long errors;
+	private final long[] downloadLatency;
+	private final long downloadMillis;
+	private final long[] decodeLatency;
+	private final long decodeMillis;
+	private final long memoryBytes;
+	private final long memoryMaxBytes;
+	private final long diskBytes;
+	private final long diskMaxBytes;
+	private final int diskQueued;
+	private final int diskActive;
+	private final int networkQueued;
+	private final int networkActive;
+	private final int decodeQueued;
+	private final int decodeActive;
+
+	ImageLoaderStats(StatsRecorder recorder, MemoryCacheAware<String, Bitmap> memoryCache, LruDiskCache diskCache,
+			PriorityExecutor diskExecutor, PriorityExecutor networkExecutor, PriorityExecutor decodeExecutor) {
+		if (recorder != null) {
+			memoryHits = recorder.getMemoryLookups() - recorder.getMemoryMisses();
+			memoryMisses = recorder.getMemoryMisses();
+			diskHits = recorder.getDiskLookups() - recorder.getDiskMisses();
+			diskMisses = recorder.getDiskMisses();
+			diskCommits = recorder.getDiskCommits();
+			diskEvictions = recorder.getDiskEvictions();
+			downloads = recorder.getDownloads();
+			downloadFailures = recorder.getDownloadFailures();
+			bytesDownloaded = recorder.getBytesDownloaded();
+			decodes = recorder.getDecodes();
+			errors = recorder.getErrors();
+			downloadLatency = recorder.getDownloadLatency().getCounts();
+			downloadMillis = recorder.getDownloadLatency().getTotalMillis();
+			decodeLatency = recorder.getDecodeLatency().getCounts();
+			decodeMillis = recorder.getDecodeLatency().getTotalMillis();
+		} else {
+			memoryHits = memoryMisses = diskHits = diskMisses = diskCommits = diskEvictions = 0;
+			downloads = downloadFailures = bytesDownloaded = decodes = errors = 0;
+			downloadLatency = new long[LatencyHistogram.BUCKET_COUNT];
+			decodeLatency = new long[LatencyHistogram.BUCKET_COUNT];
+			downloadMillis = decodeMillis = 0;
+		}
+		memoryBytes = memoryCache != null ? memoryCache.size() : 0;
+		memoryMaxBytes = memoryCache != null ? memoryCache.maxSize() : 0;
+		diskBytes = diskCache != null ? diskCache.size() : 0;
+		diskMaxBytes = diskCache != null ? diskCache.maxSize() : 0;
+		diskQueued = diskExecutor != null ? diskExecutor.getQueueSize() : 0;
+		diskActive = diskExecutor != null ? diskExecutor.getActiveCount() : 0;
+		networkQueued = networkExecutor != null ? networkExecutor.getQueueSize() : 0;
+		networkActive = networkExecutor != null ? networkExecutor.getActiveCount() : 0;
+		decodeQueued = decodeExecutor != null ? decodeExecutor.getQueueSize() : 0;
+		decodeActive = decodeExecutor != null ? decodeExecutor.getActiveCount() : 0;
+	}
+
+	/**
+	 * 内存缓存命中率，没有查找时返回0
+	 * 
+	 * @return
+	 */
+	public double getMemoryHitRatio() {
+		return ratio(memoryHits, memoryHits + memoryMisses);
+	}
+
+	/**
+	 * 硬盘缓存命中率，不包括下载后的读取，没有查找时返回0
+	 * 
+	 * @return
+	 */
+	public double getDiskHitRatio() {
+		return ratio(diskHits, diskHits + diskMisses);
+	}
+
+	public long getMemoryHits() {
+		return memoryHits;
+	}
+
+	public long getMemoryMisses() {
+		return memoryMisses;
+	}
+
+	public long getDiskHits() {
+		return diskHits;
+	}
+
+	public long getDiskMisses() {
+		return diskMisses;
+	}
+
+	public long getDiskCommits() {
+		return diskCommits;
+	}
+
+	public long getDiskEvictions() {
+		return diskEvictions;
+	}
+
+	public long getDownloads() {
+		return downloads;
+	}
+
+	public long getDownloadFailures() {
+		return downloadFailures;
+	}
+
+	public long getBytesDownloaded() {
+		return bytesDownloaded;
+	}
+
+	public long getDecodes() {
+		return decodes;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * 成功下载的耗时分布，桶的划分见{@link LatencyHistogram}
+	 * 
+	 * @return
+	 */
+	public long[] getDownloadLatency() {
+		return downloadLatency.clone();
+	}
+
+	/**
+	 * 解码的耗时分布，桶的划分见{@link LatencyHistogram}
+	 * 
+	 * @return
+	 */
+	public long[] getDecodeLatency() {
+		return decodeLatency.clone();
+	}
+
+	/**
+	 * 成功下载的平均耗时，以毫秒为单位
+	 * 
+	 * @return
+	 */
+	public double getDownloadMeanMillis() {
+		return ratio(downloadMillis, downloads - downloadFailures);
+	}
+
+	/**
+	 * 解码的平均耗时，以毫秒为单位
+	 * 
+	 * @return
+	 */
+	public double getDecodeMeanMillis() {
+		return ratio(decodeMillis, decodes);
+	}
+
+	public long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	public long getMemoryMaxBytes() {
+		return memoryMaxBytes;
+	}
+
+	public long getDiskBytes() {
+		return diskBytes;
+	}
+
+	public long getDiskMaxBytes() {
+		return diskMaxBytes;
+	}
+
+	public int getDiskQueued() {
+		return diskQueued;
+	}
+
+	public int getDiskActive() {
+		return diskActive;
+	}
+
+	public int getNetworkQueued() {
+		return networkQueued;
+	}
+
+	public int getNetworkActive() {
+		return networkActive;
+	}
+
+	public int getDecodeQueued() {
+		return decodeQueued;
+	}
+
+	public int getDecodeActive() {
+		return decodeActive;
+	}
+
+	/**
+	 * 导出为扁平的键值，便于上报。耗时分布的键为"download.latency.le_8ms"形式，最后一个桶为"download.latency.inf"
+	 * 
+	 * @return
+	 */
+	public Map<String, Number> toMap() {
+		Map<String, Number> map = new LinkedHashMap<String, Number>();
+		map.put("memory.hits", memoryHits);
+		map.put("memory.misses", memoryMisses);
+		map.put("memory.hitRatio", getMemoryHitRatio());
+		map.put("memory.bytes", memoryBytes);
+		map.put("memory.maxBytes", memoryMaxBytes);
+		map.put("disk.hits", diskHits);
+		map.put("disk.misses", diskMisses);
+		map.put("disk.hitRatio", getDiskHitRatio());
+		map.put("disk.commits", diskCommits);
+		map.put("disk.evictions", diskEvictions);
+		map.put("disk.bytes", diskBytes);
+		map.put("disk.maxBytes", diskMaxBytes);
+		map.put("download.count", downloads);
+		map.put("download.failures", downloadFailures);
+		map.put("download.bytes", bytesDownloaded);
+		putLatency(map, "download.latency", downloadLatency);
+		map.put("decode.count", decodes);
+		putLatency(map, "decode.latency", decodeLatency);
+		map.put("errors", errors);
+		map.put("executor.disk.queued", diskQueued);
+		map.put("executor.disk.active", diskActive);
+		map.put("executor.network.queued", networkQueued);
+		map.put("executor.network.active", networkActive);
+		map.put("executor.decode.queued", decodeQueued);
+		map.put("executor.decode.active", decodeActive);
+		return map;
+	}
+
+	private static void putLatency(Map<String, Number> map, String prefix, long[] counts) {
+		for (int i = 0; i < counts.length; i++) {
+			long bound = LatencyHistogram.getUpperBound(i);
+			map.put(prefix + "." + (bound == Long.MAX_VALUE ? "inf" : "le_" + bound + "ms"), counts[i]);
+		}
+	}
+
+	private static double ratio(long numerator, long denominator) {
+		return denominator > 0 ? (double) numerator / denominator : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ImageLoaderStats" + toMap();
+	}
+
+}
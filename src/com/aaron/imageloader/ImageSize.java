@@ -8,4 +8,41 @@ package com.aaron.imageloader;
 public class ImageSize {
 	int width;
 	int height;
+	ScaleMode scaleMode = ScaleMode.FIT;
+
+	public ImageSize() {
+	}
+
+	/**
+	 * 按{@link ScaleMode#FIT}缩放到指定尺寸
+	 * 
+	 * @param width
+	 * @param height
+	 */
+	public ImageSize(int width, int height) {
+		this(width, height, ScaleMode.FIT);
+	}
+
+	/**
+	 * @param width
+	 * @param height
+	 * @param scaleMode
+	 */
+	public ImageSize(int width, int height, ScaleMode scaleMode) {
+		this.width = width;
+		this.height = height;
+		this.scaleMode = scaleMode != null ? scaleMode : ScaleMode.FIT;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public ScaleMode getScaleMode() {
+		return scaleMode;
+	}
 }
@@ -0,0 +1,326 @@
+package com.aaron.imageloader;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 将图片地址转换为硬盘缓存的key，不依赖Android，可以在普通JVM中使用
+ *
+ * <p>
+ * 按UTF-8编码计算，每个线程复用编码缓冲区和MessageDigest，最近使用的地址和key保存在LRU表中，命中时不再计算
+ *
+ * @author Aaron
+ *
+ */
+public final class KeyHasher {
+
+	/**
+	 * key的计算方式，两种方式都生成32位小写十六进制字符串
+	 */
+	public enum Algorithm {
+		/**
+		 * MD5，与旧版本生成的key相同
+		 */
+		MD5,
+		/**
+		 * MurmurHash3 x64 128位，不是加密算法但快很多，适合作为缓存key
+		 */
+		MURMUR3_128
+	}
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	/**
+	 * 每个线程的缓冲区
+	 */
+	private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	private final Algorithm algorithm;
+
+	/**
+	 * 地址到key的LRU表，容量为0时不缓存
+	 */
+	private final Map<String, String> keys;
+
+	/**
+	 * @param algorithm key的计算方式
+	 * @param cacheCount 缓存的地址数量，为0时不缓存
+	 */
+	public KeyHasher(Algorithm algorithm, final int cacheCount) {
+		if (algorithm == null) {
+			throw new NullPointerException("algorithm == null");
+		}
+		this.algorithm = algorithm;
+		this.keys = cacheCount > 0 ? new LinkedHashMap<String, String>(cacheCount, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > cacheCount;
+			}
+		} : null;
+	}
+
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * 返回地址对应的key，优先从LRU表中获取
+	 *
+	 * @param url
+	 * @return
+	 */
+	public String hash(String url) {
+		if (keys == null) {
+			return hash(algorithm, url);
+		}
+		String key;
+		synchronized (keys) {
+			key = keys.get(url);
+		}
+		if (key == null) {
+			key = hash(algorithm, url);
+			synchronized (keys) {
+				keys.put(url, key);
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * 使用指定方式计算key，不经过LRU表
+	 *
+	 * @param algorithm
+	 * @param url
+	 * @return
+	 */
+	public static String hash(Algorithm algorithm, String url) {
+		return algorithm == Algorithm.MURMUR3_128 ? murmur3(url) : md5(url);
+	}
+
+	/**
+	 * 使用MD5算法对传入的key进行加密并返回，避免url命名时存在不合法
+	 *
+	 * @param key
+	 * @return
+	 */
+	public static String hashKeyForDisk(String key) {
+		return md5(key);
+	}
+
+	/**
+	 * 返回key的UTF-8编码的MD5值
+	 *
+	 * @param key
+	 * @return
+	 */
+	public static String md5(String key) {
+		Scratch scratch = SCRATCH.get();
+		if (scratch.md5 == null) {
+			return String.valueOf(key.hashCode());
+		}
+		int length = scratch.encodeUtf8(key);
+		scratch.md5.update(scratch.bytes, 0, length);
+		byte[] digest = scratch.md5.digest();
+		char[] hex = scratch.hex;
+		for (int i = 0; i < digest.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+		}
+		return new String(hex, 0, digest.length * 2);
+	}
+
+	/**
+	 * 返回key的UTF-8编码的MurmurHash3 x64 128位值，字节顺序与常见实现相同
+	 *
+	 * @param key
+	 * @return
+	 */
+	public static String murmur3(String key) {
+		Scratch scratch = SCRATCH.get();
+		int length = scratch.encodeUtf8(key);
+		byte[] data = scratch.bytes;
+		long h1 = 0;
+		long h2 = 0;
+		int blocks = length >> 4;
+		for (int i = 0; i < blocks; i++) {
+			long k1 = getLongLittleEndian(data, i << 4);
+			long k2 = getLongLittleEndian(data, (i << 4) + 8);
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		int offset = blocks << 4;
+		long k1 = 0;
+		long k2 = 0;
+		switch (length & 15) {
+		case 15:
+			k2 ^= (long) (data[offset + 14] & 0xff) << 48;
+		case 14:
+			k2 ^= (long) (data[offset + 13] & 0xff) << 40;
+		case 13:
+			k2 ^= (long) (data[offset + 12] & 0xff) << 32;
+		case 12:
+			k2 ^= (long) (data[offset + 11] & 0xff) << 24;
+		case 11:
+			k2 ^= (long) (data[offset + 10] & 0xff) << 16;
+		case 10:
+			k2 ^= (long) (data[offset + 9] & 0xff) << 8;
+		case 9:
+			k2 ^= (long) (data[offset + 8] & 0xff);
+			h2 ^= mixK2(k2);
+		case 8:
+			k1 ^= (long) (data[offset + 7] & 0xff) << 56;
+		case 7:
+			k1 ^= (long) (data[offset + 6] & 0xff) << 48;
+		case 6:
+			k1 ^= (long) (data[offset + 5] & 0xff) << 40;
+		case 5:
+			k1 ^= (long) (data[offset + 4] & 0xff) << 32;
+		case 4:
+			k1 ^= (long) (data[offset + 3] & 0xff) << 24;
+		case 3:
+			k1 ^= (long) (data[offset + 2] & 0xff) << 16;
+		case 2:
+			k1 ^= (long) (data[offset + 1] & 0xff) << 8;
+		case 1:
+			k1 ^= (long) (data[offset] & 0xff);
+			h1 ^= mixK1(k1);
+		default:
+			break;
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix64(h1);
+		h2 = fmix64(h2);
+		h1 += h2;
+		h2 += h1;
+		char[] hex = scratch.hex;
+		putLongLittleEndianHex(hex, 0, h1);
+		putLongLittleEndianHex(hex, 16, h2);
+		return new String(hex, 0, 32);
+	}
+
+	public static String bytesToHexString(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(hex);
+	}
+
+	private static long mixK1(long k1) {
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, 31);
+		k1 *= C2;
+		return k1;
+	}
+
+	private static long mixK2(long k2) {
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, 33);
+		k2 *= C1;
+		return k2;
+	}
+
+	private static long fmix64(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	private static long getLongLittleEndian(byte[] data, int offset) {
+		return (data[offset] & 0xffL) | (data[offset + 1] & 0xffL) << 8 | (data[offset + 2] & 0xffL) << 16
+				| (data[offset + 3] & 0xffL) << 24 | (data[offset + 4] & 0xffL) << 32
+				| (data[offset + 5] & 0xffL) << 40 | (data[offset + 6] & 0xffL) << 48
+				| (data[offset + 7] & 0xffL) << 56;
+	}
+
+	private static void putLongLittleEndianHex(char[] hex, int offset, long value) {
+		for (int i = 0; i < 8; i++) {
+			int b = (int) (value >>> (i * 8));
+			hex[offset + i * 2] = HEX_DIGITS[(b >> 4) & 0xf];
+			hex[offset + i * 2 + 1] = HEX_DIGITS[b & 0xf];
+		}
+	}
+
+	/**
+	 * 线程内复用的缓冲区
+	 */
+	private static final class Scratch {
+		byte[] bytes = new byte[256];
+		final char[] hex = new char[32];
+		final MessageDigest md5;
+
+		Scratch() {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("MD5");
+			} catch (NoSuchAlgorithmException e) {
+				digest = null;
+			}
+			md5 = digest;
+		}
+
+		/**
+		 * 将字符串按UTF-8编码写入bytes，不成对的代理字符写为'?'，与String.getBytes相同
+		 *
+		 * @param s
+		 * @return 编码后的长度
+		 */
+		int encodeUtf8(String s) {
+			int length = s.length();
+			if (bytes.length < length * 3) {
+				bytes = new byte[length * 3];
+			}
+			byte[] out = bytes;
+			int position = 0;
+			for (int i = 0; i < length; i++) {
+				char c = s.charAt(i);
+				if (c < 0x80) {
+					out[position++] = (byte) c;
+				} else if (c < 0x800) {
+					out[position++] = (byte) (0xc0 | (c >> 6));
+					out[position++] = (byte) (0x80 | (c & 0x3f));
+				} else if (Character.isHighSurrogate(c) && i + 1 < length
+						&& Character.isLowSurrogate(s.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, s.charAt(++i));
+					out[position++] = (byte) (0xf0 | (codePoint >> 18));
+					out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					out[position++] = (byte) (0x80 | (codePoint & 0x3f));
+				} else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+					out[position++] = '?';
+				} else {
+					out[position++] = (byte) (0xe0 | (c >> 12));
+					out[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					out[position++] = (byte) (0x80 | (c & 0x3f));
+				}
+			}
+			return position;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.aaron.imageloader;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时分布，以毫秒为单位按2的幂分桶：第i个桶记录不超过2^i毫秒的耗时，最后一个桶记录超出的部分
+ * 
+ * @author Aaron
+ * 
+ */
+public class LatencyHistogram {
+
+	/**
+	 * 桶的数量，最后一个有上界的桶为2^14=16384毫秒
+	 */
+	public static final int BUCKET_COUNT = 16;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong totalMillis = new AtomicLong();
+
+	/**
+	 * 记录一次耗时
+	 * 
+	 * @param millis
+	 */
+	public void record(long millis) {
+		buckets.incrementAndGet(bucketOf(millis));
+		totalMillis.addAndGet(Math.max(0, millis));
+	}
+
+	/**
+	 * 返回各个桶的计数
+	 * 
+	 * @return
+	 */
+	public long[] getCounts() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+
+	public long getTotalMillis() {
+		return totalMillis.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		totalMillis.set(0);
+	}
+
+	/**
+	 * 返回第index个桶的上界，最后一个桶返回{@link Long#MAX_VALUE}
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public static long getUpperBound(int index) {
+		return index >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << index;
+	}
+
+	/**
+	 * 根据桶计数估算百分位耗时，返回所在桶的上界
+	 * 
+	 * @param counts {@link #getCounts()}的结果
+	 * @param percentile 0到1
+	 * @return 没有记录时返回0
+	 */
+	public static long getPercentile(long[] counts, double percentile) {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(total * percentile);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= target && counts[i] > 0) {
+				return getUpperBound(i);
+			}
+		}
+		return getUpperBound(counts.length - 1);
+	}
+
+	private static int bucketOf(long millis) {
+		if (millis <= 1) {
+			return 0;
+		}
+		return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.aaron.imageloader;
+
+/**
+ * {@link LoaderEventListener}的空实现，只需重写关心的回调
+ * 
+ * @author Aaron
+ * 
+ */
+public abstract class LoaderEventAdapter implements LoaderEventListener {
+
+	@Override
+	public void onMemoryLookup(String key, boolean hit) {
+	}
+
+	@Override
+	public void onDiskLookup(String key, boolean hit) {
+	}
+
+	@Override
+	public void onDiskCommit(String key, long bytes) {
+	}
+
+	@Override
+	public void onDiskEviction(String key, long bytes) {
+	}
+
+	@Override
+	public void onDownload(String url, long bytes, long millis, boolean success) {
+	}
+
+	@Override
+	public void onDecode(String url, int width, int height, long millis) {
+	}
+
+	@Override
+	public void onError(String url, Throwable error) {
+	}
+
+}
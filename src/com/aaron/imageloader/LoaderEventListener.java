@@ -0,0 +1,67 @@
+package com.aaron.imageloader;
+
+/**
+ * 加载过程中的事件回调，用于日志和统计。未设置时不产生任何开销
+ * 
+ * <p>
+ * 回调在加载线程中执行，部分回调持有缓存的锁，实现应尽快返回
+ * 
+ * @author Aaron
+ * 
+ */
+public interface LoaderEventListener {
+
+	/**
+	 * 查找内存缓存
+	 * @param key
+	 * @param hit 是否命中
+	 */
+	void onMemoryLookup(String key, boolean hit);
+
+	/**
+	 * 查找硬盘缓存
+	 * @param key
+	 * @param hit 是否命中
+	 */
+	void onDiskLookup(String key, boolean hit);
+
+	/**
+	 * 硬盘缓存写入提交
+	 * @param key
+	 * @param bytes 条目大小
+	 */
+	void onDiskCommit(String key, long bytes);
+
+	/**
+	 * 硬盘缓存超出预定值时移除条目
+	 * @param key
+	 * @param bytes 条目大小
+	 */
+	void onDiskEviction(String key, long bytes);
+
+	/**
+	 * 下载结束
+	 * @param url
+	 * @param bytes 下载的字节数
+	 * @param millis 耗时
+	 * @param success 是否成功
+	 */
+	void onDownload(String url, long bytes, long millis, boolean success);
+
+	/**
+	 * 解码结束
+	 * @param url
+	 * @param width 解码后的宽度，失败时为0
+	 * @param height 解码后的高度，失败时为0
+	 * @param millis 耗时
+	 */
+	void onDecode(String url, int width, int height, long millis);
+
+	/**
+	 * 加载过程中出现异常
+	 * @param url
+	 * @param error
+	 */
+	void onError(String url, Throwable error);
+
+}
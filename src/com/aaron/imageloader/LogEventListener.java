@@ -0,0 +1,74 @@
+package com.aaron.imageloader;
+
+import android.util.Log;
+
+/**
+ * 将事件输出到Logcat。查找为VERBOSE级别，提交、移除、下载、解码为DEBUG级别，异常为WARN级别，低于指定级别的事件不输出
+ * 
+ * @author Aaron
+ * 
+ */
+public class LogEventListener implements LoaderEventListener {
+
+	private static final String TAG = "ImageLoader";
+
+	/**
+	 * 输出的最低级别，取值为{@link Log#VERBOSE}、{@link Log#DEBUG}等
+	 */
+	private final int level;
+
+	public LogEventListener(int level) {
+		this.level = level;
+	}
+
+	@Override
+	public void onMemoryLookup(String key, boolean hit) {
+		if (level <= Log.VERBOSE) {
+			Log.v(TAG, "memory " + (hit ? "hit " : "miss ") + key);
+		}
+	}
+
+	@Override
+	public void onDiskLookup(String key, boolean hit) {
+		if (level <= Log.VERBOSE) {
+			Log.v(TAG, "disk " + (hit ? "hit " : "miss ") + key);
+		}
+	}
+
+	@Override
+	public void onDiskCommit(String key, long bytes) {
+		if (level <= Log.DEBUG) {
+			Log.d(TAG, "disk commit " + key + " " + bytes + " bytes");
+		}
+	}
+
+	@Override
+	public void onDiskEviction(String key, long bytes) {
+		if (level <= Log.DEBUG) {
+			Log.d(TAG, "disk evict " + key + " " + bytes + " bytes");
+		}
+	}
+
+	@Override
+	public void onDownload(String url, long bytes, long millis, boolean success) {
+		if (level <= Log.DEBUG) {
+			Log.d(TAG, "download " + (success ? "" : "failed ") + bytes + " bytes in " + millis + "ms, "
+					+ (bytes * 1000 / Math.max(1, millis)) + " bytes/s: " + url);
+		}
+	}
+
+	@Override
+	public void onDecode(String url, int width, int height, long millis) {
+		if (level <= Log.DEBUG) {
+			Log.d(TAG, "decode " + width + "x" + height + " in " + millis + "ms: " + url);
+		}
+	}
+
+	@Override
+	public void onError(String url, Throwable error) {
+		if (level <= Log.WARN) {
+			Log.w(TAG, "load failed: " + url, error);
+		}
+	}
+
+}
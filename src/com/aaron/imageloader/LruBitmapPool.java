@@ -0,0 +1,212 @@
+package com.aaron.imageloader;
+
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.TreeMap;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+/**
+ * 按字节大小分组的Bitmap复用池，超出容量时移除最早放入的Bitmap
+ * 
+ * @author Aaron
+ * 
+ */
+public class LruBitmapPool implements BitmapPoolAware {
+
+	/**
+	 * KitKat以上允许复用比需要大的Bitmap，但不超过需要大小的倍数，避免浪费
+	 */
+	private static final int MAX_SIZE_MULTIPLE = 4;
+
+	/**
+	 * 按字节大小分组
+	 */
+	private final TreeMap<Integer, LinkedList<Bitmap>> groups = new TreeMap<Integer, LinkedList<Bitmap>>();
+
+	/**
+	 * 放入顺序，用于超出容量时移除
+	 */
+	private final LinkedHashSet<Bitmap> order = new LinkedHashSet<Bitmap>();
+
+	/**
+	 * 最大容量
+	 */
+	private final int maxSize;
+
+	/**
+	 * 当前容量
+	 */
+	private int currentSize;
+
+	private int hitCount;
+	private int missCount;
+	private int putCount;
+	private int evictionCount;
+
+	public LruBitmapPool(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public boolean put(Bitmap bitmap) {
+		if (bitmap == null) {
+			throw new NullPointerException("bitmap == null");
+		}
+		if (!isPoolable(bitmap)) {
+			return false;
+		}
+		int size = sizeOf(bitmap);
+		if (size > maxSize) {
+			return false;
+		}
+		synchronized (this) {
+			if (order.contains(bitmap)) {
+				return true;
+			}
+			LinkedList<Bitmap> group = groups.get(size);
+			if (group == null) {
+				group = new LinkedList<Bitmap>();
+				groups.put(size, group);
+			}
+			group.add(bitmap);
+			order.add(bitmap);
+			currentSize += size;
+			putCount++;
+			trimToSize(maxSize);
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		Bitmap result = null;
+		if (width > 0 && height > 0 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			if (config == null) {
+				config = Bitmap.Config.ARGB_8888;
+			}
+			int size = width * height * getBytesPerPixel(config);
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+				// 字节数足够即可复用，解码时会自动调整宽高和格式
+				Integer key = groups.ceilingKey(size);
+				if (key != null && key <= size * MAX_SIZE_MULTIPLE) {
+					result = groups.get(key).getFirst();
+				}
+			} else {
+				// KitKat以下要求宽高和格式完全一致
+				LinkedList<Bitmap> group = groups.get(size);
+				if (group != null) {
+					for (Bitmap bitmap : group) {
+						if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+							result = bitmap;
+							break;
+						}
+					}
+				}
+			}
+		}
+		if (result != null) {
+			removeBitmap(result);
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		synchronized (this) {
+			trimToSize(-1);
+		}
+	}
+
+	/**
+	 * 返回当前容量，以byte为单位
+	 * 
+	 * @return
+	 */
+	public synchronized int size() {
+		return currentSize;
+	}
+
+	public int maxSize() {
+		return maxSize;
+	}
+
+	public synchronized int hitCount() {
+		return hitCount;
+	}
+
+	public synchronized int missCount() {
+		return missCount;
+	}
+
+	public synchronized int putCount() {
+		return putCount;
+	}
+
+	public synchronized int evictionCount() {
+		return evictionCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		int accesses = hitCount + missCount;
+		int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+		return "LruBitmapPool[size=" + currentSize + ",maxSize=" + maxSize + ",hits=" + hitCount + ",misses=" + missCount
+				+ ",hitRate=" + hitPercent + "%]";
+	}
+
+	/**
+	 * 超出容量时移除最早放入的Bitmap
+	 * 
+	 * @param maxSize
+	 */
+	private void trimToSize(int maxSize) {
+		while (currentSize > maxSize && !order.isEmpty()) {
+			removeBitmap(order.iterator().next());
+			evictionCount++;
+		}
+	}
+
+	private void removeBitmap(Bitmap bitmap) {
+		int size = sizeOf(bitmap);
+		LinkedList<Bitmap> group = groups.get(size);
+		if (group != null) {
+			group.remove(bitmap);
+			if (group.isEmpty()) {
+				groups.remove(size);
+			}
+		}
+		order.remove(bitmap);
+		currentSize -= size;
+	}
+
+	private static boolean isPoolable(Bitmap bitmap) {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && bitmap.isMutable() && !bitmap.isRecycled();
+	}
+
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	private static int sizeOf(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	static int getBytesPerPixel(Bitmap.Config config) {
+		if (config == Bitmap.Config.ALPHA_8) {
+			return 1;
+		} else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+			return 2;
+		}
+		return 4;
+	}
+
+}
@@ -14,18 +14,19 @@
  */
 package com.aaron.imageloader;
 
-import android.util.Log;
-
 import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,17 +36,22 @@ import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A cache that uses a bounded amount of space on a filesystem. Each cache entry
@@ -87,7 +93,10 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Clients call {@link #get} to read a snapshot of an entry. The read will
  * observe the value at the time that {@link #get} was called. Updates and
- * removals after the call do not impact ongoing reads.
+ * removals after the call do not impact ongoing reads. Reads do not take the
+ * cache lock: entries live in a concurrent map, LRU order is tracked with an
+ * access counter, and {@code READ} journal lines are appended in batches on
+ * the background thread.
  * 
  * <p>
  * This class is tolerant of some I/O errors. If files are missing from the
@@ -100,13 +109,24 @@ public final class LruDiskCache implements Closeable {
 
 	static final String JOURNAL_FILE = "journal";
 	static final String JOURNAL_FILE_TMP = "journal.tmp";
+	static final String JOURNAL_FILE_BINARY = "journal.bin";
+	static final String JOURNAL_FILE_BINARY_TMP = "journal.bin.tmp";
 	static final String MAGIC = "libcore.io.DiskLruCache";
 	static final String VERSION_1 = "1";
+	static final int BINARY_MAGIC = 0x4c52554a; // "LRUJ"
+	static final int BINARY_VERSION_1 = 1;
 	static final long ANY_SEQUENCE_NUMBER = -1;
 	private static final String CLEAN = "CLEAN";
 	private static final String DIRTY = "DIRTY";
 	private static final String REMOVE = "REMOVE";
 	private static final String READ = "READ";
+	private static final byte OP_CLEAN = 1;
+	private static final byte OP_DIRTY = 2;
+	private static final byte OP_REMOVE = 3;
+	private static final byte OP_READ = 4;
+	private static final int BINARY_KEY_LENGTH = 16;
+	private static final int BINARY_HEADER_LENGTH = 16;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
 	private static final Charset UTF_8 = Charset.forName("UTF-8");
 	private static final int IO_BUFFER_SIZE = 8 * 1024;
@@ -141,19 +161,60 @@ public final class LruDiskCache implements Closeable {
 	 * may occasionally be compacted by dropping redundant lines. A temporary
 	 * file named "journal.tmp" will be used during compaction; that file should
 	 * be deleted if it exists when the cache is opened.
+	 * 
+	 * The optional binary journal, named "journal.bin", holds the same
+	 * records in fixed-width form. Its header is four big-endian ints: the
+	 * magic 0x4c52554a, the format version, the application's version and the
+	 * value count. Each record is a one-byte op (1 CLEAN, 2 DIRTY, 3 REMOVE,
+	 * 4 READ), the key as 16 bytes, and one eight-byte length per value (zero
+	 * unless CLEAN). Keys must therefore be 32 lowercase hex characters, which
+	 * is what hashed URLs look like. Records are buffered and written in
+	 * groups; DIRTY records are written immediately. A truncated record at the
+	 * end of the file is ignored and the journal is rebuilt before anything is
+	 * appended, so later records stay aligned. Opening a cache in one format
+	 * migrates a journal found in the other.
 	 */
 
 	private final File directory;
 	private final File journalFile;
 	private final File journalFileTmp;
+	private final File otherJournalFile;
+	private final boolean binaryJournal;
 	private final int appVersion;
 	private final long maxSize;
 	private final int valueCount;
-	private long size = 0;
-	private Writer journalWriter;
-	private final LinkedHashMap<String, Entry> lruEntries = new LinkedHashMap<String, Entry>(0, 0.75f, true);
+	private volatile long size = 0;
+	private volatile JournalWriter journalWriter;
+	private final ConcurrentHashMap<String, Entry> lruEntries = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * The entries of {@link #lruEntries} from least to most recently moved,
+	 * guarded by the cache lock. Lock-free reads only stamp the entry; the
+	 * eviction loop moves an entry that was read since its last move instead
+	 * of evicting it, so the order is fixed up lazily.
+	 */
+	private final LinkedHashMap<String, Entry> accessOrder = new LinkedHashMap<String, Entry>(0, 0.75f, true);
 	private int redundantOpCount;
 
+	/**
+	 * True if the binary journal ended with a partial record when it was
+	 * read; appending to it would misalign every later record.
+	 */
+	private boolean journalTornTail;
+
+	/** Notified of lookups, commits and evictions; null if nobody listens. */
+	private volatile LoaderEventListener eventListener;
+
+	/**
+	 * Source of access stamps. Entries with smaller stamps were used less
+	 * recently and are evicted first.
+	 */
+	private final AtomicLong accessCounter = new AtomicLong();
+
+	/** Keys read since the last batch of READ lines was journaled. */
+	private final ConcurrentLinkedQueue<String> pendingReads = new ConcurrentLinkedQueue<String>();
+	private final AtomicBoolean readFlushScheduled = new AtomicBoolean();
+
 	/**
 	 * To differentiate between old and current snapshots, each entry is given a
 	 * sequence number each time an edit is committed. A snapshot is stale if
@@ -278,12 +339,32 @@ public final class LruDiskCache implements Closeable {
 			return null;
 		}
 	};
+	private final Callable<Void> readFlushCallable = new Callable<Void>() {
+		@Override
+		public Void call() throws Exception {
+			synchronized (LruDiskCache.this) {
+				readFlushScheduled.set(false);
+				if (journalWriter == null) {
+					pendingReads.clear();
+					return null; // closed
+				}
+				writePendingReads();
+				if (journalRebuildRequired()) {
+					rebuildJournal();
+					redundantOpCount = 0;
+				}
+			}
+			return null;
+		}
+	};
 
-	private LruDiskCache(File directory, int appVersion, int valueCount, long maxSize) {
+	private LruDiskCache(File directory, int appVersion, int valueCount, long maxSize, boolean binaryJournal) {
 		this.directory = directory;
 		this.appVersion = appVersion;
-		this.journalFile = new File(directory, JOURNAL_FILE);
-		this.journalFileTmp = new File(directory, JOURNAL_FILE_TMP);
+		this.binaryJournal = binaryJournal;
+		this.journalFile = new File(directory, binaryJournal ? JOURNAL_FILE_BINARY : JOURNAL_FILE);
+		this.journalFileTmp = new File(directory, binaryJournal ? JOURNAL_FILE_BINARY_TMP : JOURNAL_FILE_TMP);
+		this.otherJournalFile = new File(directory, binaryJournal ? JOURNAL_FILE : JOURNAL_FILE_BINARY);
 		this.valueCount = valueCount;
 		this.maxSize = maxSize;
 	}
@@ -309,6 +390,34 @@ public final class LruDiskCache implements Closeable {
 	// 它用open的目的是进行各种检查，保证传入构造函数的参数是正确的，避免出错。这里的检查有判断版本号，判断缓存目录等。
 	// 如果你的应用之前就已经采用了缓存，这个缓存就开始识别你之前的缓存文件，如果应用之前没进行缓存，那么就创立一个空的缓存。
 	public static LruDiskCache open(File directory, int appVersion, int valueCount, long maxSize) throws IOException {
+		return open(directory, appVersion, valueCount, maxSize, false);
+	}
+
+	/**
+	 * Opens the cache in {@code directory}, creating a cache if none exists
+	 * there. If only a journal in the other format exists, it is read and
+	 * rewritten in the requested format.
+	 * 
+	 * @param binaryJournal
+	 *            true to keep the journal in the compact binary format. Keys
+	 *            must then be 32 lowercase hex characters.
+	 * @see #open(File, int, int, long)
+	 */
+	public static LruDiskCache open(File directory, int appVersion, int valueCount, long maxSize, boolean binaryJournal)
+			throws IOException {
+		return open(directory, appVersion, valueCount, maxSize, binaryJournal, null);
+	}
+
+	/**
+	 * Opens the cache in {@code directory}, reporting journal replay progress
+	 * to {@code listener}.
+	 * 
+	 * @param listener
+	 *            notified as the journal is read; may be null
+	 * @see #open(File, int, int, long, boolean)
+	 */
+	public static LruDiskCache open(File directory, int appVersion, int valueCount, long maxSize, boolean binaryJournal,
+			ReplayListener listener) throws IOException {
 		if (maxSize <= 0) {
 			throw new IllegalArgumentException("maxSize <= 0");
 		}
@@ -318,12 +427,20 @@ public final class LruDiskCache implements Closeable {
 		if (directory != null && !directory.exists())
 			directory.mkdirs();
 		// prefer to pick up where we left off
-		LruDiskCache cache = new LruDiskCache(directory, appVersion, valueCount, maxSize); // 调用构造方法
-		if (cache.journalFile.exists()) {
+		LruDiskCache cache = new LruDiskCache(directory, appVersion, valueCount, maxSize, binaryJournal); // 调用构造方法
+		File existing = cache.journalFile.exists() ? cache.journalFile : (cache.otherJournalFile.exists() ? cache.otherJournalFile
+				: null);
+		if (existing != null) {
 			try {
-				cache.readJournal();
+				cache.readJournal(existing, listener);
 				cache.processJournal();
-				cache.journalWriter = new BufferedWriter(new FileWriter(cache.journalFile, true), IO_BUFFER_SIZE);
+				if (existing == cache.journalFile && !cache.journalTornTail) {
+					cache.journalWriter = cache.newJournalWriter(cache.journalFile, true);
+				} else {
+					// migrate the journal to the requested format or drop a torn record
+					cache.rebuildJournal();
+					deleteIfExists(cache.otherJournalFile);
+				}
 				return cache;
 			} catch (IOException journalIsCorrupt) {
 				// System.logW("DiskLruCache " + directory + " is corrupt: "
@@ -335,13 +452,17 @@ public final class LruDiskCache implements Closeable {
 		// create a new empty cache
 		// 创建一个 空的
 		directory.mkdirs();
-		cache = new LruDiskCache(directory, appVersion, valueCount, maxSize);
+		cache = new LruDiskCache(directory, appVersion, valueCount, maxSize, binaryJournal);
 		cache.rebuildJournal();
 		return cache;
 	}
 
-	private void readJournal() throws IOException {
-		InputStream in = new BufferedInputStream(new FileInputStream(journalFile), IO_BUFFER_SIZE);
+	private void readJournal(File file, ReplayListener listener) throws IOException {
+		if (JOURNAL_FILE_BINARY.equals(file.getName())) {
+			readBinaryJournal(file, listener);
+			return;
+		}
+		InputStream in = new BufferedInputStream(openJournalInput(file, listener), IO_BUFFER_SIZE);
 		try {
 			String magic = readAsciiLine(in);
 			String version = readAsciiLine(in);
@@ -375,6 +496,7 @@ public final class LruDiskCache implements Closeable {
 		String key = parts[1];
 		if (parts[0].equals(REMOVE) && parts.length == 2) {
 			lruEntries.remove(key);
+			accessOrder.remove(key);
 			return;
 		}
 
@@ -383,6 +505,7 @@ public final class LruDiskCache implements Closeable {
 			entry = new Entry(key);
 			lruEntries.put(key, entry);
 		}
+		touch(entry);
 
 		if (parts[0].equals(CLEAN) && parts.length == 2 + valueCount) {
 			entry.readable = true;
@@ -391,12 +514,84 @@ public final class LruDiskCache implements Closeable {
 		} else if (parts[0].equals(DIRTY) && parts.length == 2) {
 			entry.currentEditor = new Editor(entry);
 		} else if (parts[0].equals(READ) && parts.length == 2) {
-			// this work was already done by calling lruEntries.get()
+			// this work was already done by stamping the entry
 		} else {
 			throw new IOException("unexpected journal line: " + line);
 		}
 	}
 
+	private void readBinaryJournal(File file, ReplayListener listener) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(openJournalInput(file, listener), IO_BUFFER_SIZE));
+		try {
+			int magic = in.readInt();
+			int version = in.readInt();
+			int appVersionInt = in.readInt();
+			int valueCountInt = in.readInt();
+			if (magic != BINARY_MAGIC || version != BINARY_VERSION_1 || appVersionInt != appVersion
+					|| valueCountInt != valueCount) {
+				throw new IOException("unexpected journal header: [" + Integer.toHexString(magic) + ", " + version + ", "
+						+ appVersionInt + ", " + valueCountInt + "]");
+			}
+
+			byte[] record = new byte[binaryRecordLength()];
+			ByteBuffer buffer = ByteBuffer.wrap(record);
+			long recordCount = 0;
+			while (true) {
+				try {
+					in.readFully(record);
+				} catch (EOFException endOfJournal) {
+					break;
+				}
+				readBinaryRecord(buffer);
+				recordCount++;
+			}
+			// a torn record at the end is an edit that never completed
+			journalTornTail = file.length() != BINARY_HEADER_LENGTH + recordCount * record.length;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	private void readBinaryRecord(ByteBuffer record) throws IOException {
+		byte op = record.get(0);
+		String key = bytesToKey(record.array(), 1);
+		if (op == OP_REMOVE) {
+			lruEntries.remove(key);
+			accessOrder.remove(key);
+			return;
+		}
+
+		Entry entry = lruEntries.get(key);
+		if (entry == null) {
+			entry = new Entry(key);
+			lruEntries.put(key, entry);
+		}
+		touch(entry);
+
+		if (op == OP_CLEAN) {
+			entry.readable = true;
+			entry.currentEditor = null;
+			for (int i = 0; i < valueCount; i++) {
+				entry.lengths[i] = record.getLong(1 + BINARY_KEY_LENGTH + 8 * i);
+			}
+		} else if (op == OP_DIRTY) {
+			entry.currentEditor = new Editor(entry);
+		} else if (op == OP_READ) {
+			// this work was already done by stamping the entry
+		} else {
+			throw new IOException("unexpected journal record: " + op);
+		}
+	}
+
+	private static InputStream openJournalInput(File file, ReplayListener listener) throws IOException {
+		InputStream in = new FileInputStream(file);
+		return listener != null ? new ProgressInputStream(in, file.length(), listener) : in;
+	}
+
+	private int binaryRecordLength() {
+		return 1 + BINARY_KEY_LENGTH + 8 * valueCount;
+	}
+
 	/**
 	 * Computes the initial size and collects garbage as a part of opening the
 	 * cache. Dirty entries are assumed to be inconsistent and will be deleted.
@@ -404,6 +599,7 @@ public final class LruDiskCache implements Closeable {
 	// 计算初始化cache的初始化大小和收集垃圾
 	private void processJournal() throws IOException {
 		deleteIfExists(journalFileTmp); // 删除日志文件
+		deleteIfExists(new File(directory, binaryJournal ? JOURNAL_FILE_TMP : JOURNAL_FILE_BINARY_TMP));
 		for (Iterator<Entry> i = lruEntries.values().iterator(); i.hasNext();) {
 			Entry entry = i.next();
 			if (entry.currentEditor == null) {
@@ -417,6 +613,7 @@ public final class LruDiskCache implements Closeable {
 					deleteIfExists(entry.getDirtyFile(t));
 				}
 				i.remove();
+				accessOrder.remove(entry.key);
 			}
 		}
 	}
@@ -430,28 +627,24 @@ public final class LruDiskCache implements Closeable {
 			journalWriter.close();
 		}
 		// 下面是 写入 journal 的 头部信息
-		Writer writer = new BufferedWriter(new FileWriter(journalFileTmp), IO_BUFFER_SIZE);
-		writer.write(MAGIC);// 写入 技术 支持
-		writer.write("\n");
-		writer.write(VERSION_1);
-		writer.write("\n");
-		writer.write(Integer.toString(appVersion));
-		writer.write("\n");
-		writer.write(Integer.toString(valueCount));
-		writer.write("\n");
-		writer.write("\n");
+		JournalWriter writer = newJournalWriter(journalFileTmp, false);
+		writer.writeHeader();
 		// -----------------------------------头完-----------------------------
-		for (Entry entry : lruEntries.values()) {
+		for (Entry entry : accessOrder.values()) {
 			if (entry.currentEditor != null) {
-				writer.write(DIRTY + ' ' + entry.key + '\n');
+				writer.writeDirty(entry.key);
 			} else {
-				writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+				writer.writeClean(entry);
 			}
 		}
 
 		writer.close();
 		journalFileTmp.renameTo(journalFile);
-		journalWriter = new BufferedWriter(new FileWriter(journalFile, true), IO_BUFFER_SIZE);
+		journalWriter = newJournalWriter(journalFile, true);
+	}
+
+	private JournalWriter newJournalWriter(File file, boolean append) throws IOException {
+		return binaryJournal ? new BinaryJournalWriter(file, append) : new TextJournalWriter(file, append);
 	}
 
 	private static void deleteIfExists(File file) throws IOException {
@@ -470,46 +663,109 @@ public final class LruDiskCache implements Closeable {
 	/**
 	 * Returns a snapshot of the entry named {@code key}, or null if it doesn't
 	 * exist is not currently readable. If a value is returned, it is moved to
-	 * the head of the LRU queue.
+	 * the head of the LRU queue. This method does not take the cache lock.
+	 */
+	public Snapshot get(String key) throws IOException {
+		return get(key, true);
+	}
+
+	/**
+	 * Like {@link #get(String)}, optionally without notifying the event
+	 * listener. Used for the read that follows a download so it is not counted
+	 * as a cache hit.
 	 */
-	public synchronized Snapshot get(String key) throws IOException {
+	Snapshot get(String key, boolean notify) throws IOException {
 		checkNotClosed();
 		validateKey(key);
-		Log.d("------", "LruDiskCache 479-- all check is ok");
 
 		Entry entry = lruEntries.get(key);
-		if (entry == null) {
-			Log.d("------", "LruDiskCache 483 -- entry == null");
-			return null;
-		}
-
-		if (!entry.readable) {
-			Log.d("------", "LruDiskCache 488 -- entry.readable is false ");
+		if (entry == null || !entry.readable) {
+			if (notify) {
+				notifyLookup(key, false);
+			}
 			return null;
 		}
 
 		/*
 		 * Open all streams eagerly to guarantee that we see a single published
 		 * snapshot. If we opened streams lazily then the streams could come
-		 * from different edits.
+		 * from different edits. A commit may publish new files while we open
+		 * them: it makes the entry's publish count odd before renaming any
+		 * file and even again afterwards, so retry while the count is odd or
+		 * has changed (a seqlock).
 		 */
 		InputStream[] ins = new InputStream[valueCount];
-		try {
-			for (int i = 0; i < valueCount; i++) {
-				ins[i] = new FileInputStream(entry.getCleanFile(i));
+		long sequenceNumber;
+		while (true) {
+			long publishCount = entry.publishCount;
+			if ((publishCount & 1) != 0) {
+				Thread.yield();
+				continue;
 			}
-		} catch (FileNotFoundException e) {
-			// a file must have been deleted manually!
-			return null;
+			sequenceNumber = entry.sequenceNumber;
+			try {
+				for (int i = 0; i < valueCount; i++) {
+					ins[i] = new FileInputStream(entry.getCleanFile(i));
+				}
+			} catch (FileNotFoundException e) {
+				// a file must have been deleted manually or by a concurrent
+				// remove!
+				closeAll(ins);
+				if (notify) {
+					notifyLookup(key, false);
+				}
+				return null;
+			}
+			if (publishCount == entry.publishCount) {
+				break;
+			}
+			closeAll(ins);
 		}
 
-		redundantOpCount++;
-		journalWriter.append(READ + ' ' + key + '\n');
-		if (journalRebuildRequired()) {
-			executorService.submit(cleanupCallable);
+		entry.lastAccess = accessCounter.incrementAndGet();
+		pendingReads.add(key);
+		if (readFlushScheduled.compareAndSet(false, true)) {
+			executorService.submit(readFlushCallable);
 		}
 
-		return new Snapshot(key, entry.sequenceNumber, ins);
+		if (notify) {
+			notifyLookup(key, true);
+		}
+		return new Snapshot(key, sequenceNumber, ins);
+	}
+
+	/**
+	 * Sets the listener notified of lookups, commits and evictions, or null to
+	 * disable notifications. Commit and eviction callbacks run while holding
+	 * the cache lock.
+	 */
+	public void setEventListener(LoaderEventListener eventListener) {
+		this.eventListener = eventListener;
+	}
+
+	private void notifyLookup(String key, boolean hit) {
+		LoaderEventListener listener = eventListener;
+		if (listener != null) {
+			listener.onDiskLookup(key, hit);
+		}
+	}
+
+	private static void closeAll(InputStream[] ins) {
+		for (int i = 0; i < ins.length; i++) {
+			closeQuietly(ins[i]);
+			ins[i] = null;
+		}
+	}
+
+	/**
+	 * Appends the READ lines recorded by {@link #get} since the last batch.
+	 */
+	private synchronized void writePendingReads() throws IOException {
+		String key;
+		while ((key = pendingReads.poll()) != null) {
+			redundantOpCount++;
+			journalWriter.writeRead(key);
+		}
 	}
 
 	/**
@@ -530,6 +786,7 @@ public final class LruDiskCache implements Closeable {
 		if (entry == null) { // 确定 没有
 			entry = new Entry(key); // 新建
 			lruEntries.put(key, entry);
+			touch(entry);
 		} else if (entry.currentEditor != null) {
 			return null; // another edit is in progress
 		}
@@ -538,7 +795,7 @@ public final class LruDiskCache implements Closeable {
 		entry.currentEditor = editor;
 
 		// flush the journal before creating files to prevent file leaks
-		journalWriter.write(DIRTY + ' ' + key + '\n');
+		journalWriter.writeDirty(key);
 		journalWriter.flush();
 		return editor;
 	}
@@ -563,7 +820,7 @@ public final class LruDiskCache implements Closeable {
 	 * this cache. This may be greater than the max size if a background
 	 * deletion is pending.
 	 */
-	public synchronized long size() {
+	public long size() {
 		return size;
 	}
 
@@ -584,6 +841,10 @@ public final class LruDiskCache implements Closeable {
 			}
 		}
 
+		if (success) {
+			// odd while files are swapped; readers retry until it is even
+			entry.publishCount++;
+		}
 		for (int i = 0; i < valueCount; i++) {
 			File dirty = entry.getDirtyFile(i);
 			if (success) {
@@ -599,23 +860,70 @@ public final class LruDiskCache implements Closeable {
 				deleteIfExists(dirty);
 			}
 		}
+		if (success) {
+			entry.sequenceNumber = nextSequenceNumber++;
+			entry.publishCount++;
+		}
 
 		redundantOpCount++;
 		entry.currentEditor = null;
+		touch(entry);
 		if (entry.readable | success) {
 			entry.readable = true;
-			journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+			journalWriter.writeClean(entry);
 			if (success) {
-				entry.sequenceNumber = nextSequenceNumber++;
+				LoaderEventListener listener = eventListener;
+				if (listener != null) {
+					listener.onDiskCommit(entry.key, entry.totalLength());
+				}
 			}
 		} else {
 			lruEntries.remove(entry.key);
-			journalWriter.write(REMOVE + ' ' + entry.key + '\n');
+			accessOrder.remove(entry.key);
+			journalWriter.writeRemove(entry.key);
 		}
 
 		if (size > maxSize || journalRebuildRequired()) {
 			executorService.submit(cleanupCallable);
 		}
+		runEditCallbacks(entry);
+	}
+
+	private void runEditCallbacks(Entry entry) {
+		List<Runnable> callbacks = entry.editCallbacks;
+		if (callbacks == null) {
+			return;
+		}
+		entry.editCallbacks = null;
+		for (Runnable callback : callbacks) {
+			try {
+				callback.run();
+			} catch (RuntimeException e) {
+				// a failed callback must not fail the commit
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Arranges for {@code callback} to run once the edit of {@code key} that
+	 * is in progress is committed or aborted, so callers do not block a thread
+	 * waiting for it. The callback runs on the thread completing the edit
+	 * while it holds the cache lock, so it should only hand work off.
+	 *
+	 * @return false if no edit of the entry is in progress; the callback will
+	 *         not be run.
+	 */
+	public synchronized boolean runAfterEdit(String key, Runnable callback) {
+		Entry entry = lruEntries.get(key);
+		if (entry == null || entry.currentEditor == null) {
+			return false;
+		}
+		if (entry.editCallbacks == null) {
+			entry.editCallbacks = new ArrayList<Runnable>();
+		}
+		entry.editCallbacks.add(callback);
+		return true;
 	}
 
 	/**
@@ -651,8 +959,55 @@ public final class LruDiskCache implements Closeable {
 		}
 
 		redundantOpCount++;
-		journalWriter.append(REMOVE + ' ' + key + '\n');
+		journalWriter.writeRemove(key);
 		lruEntries.remove(key);
+		accessOrder.remove(key);
+
+		if (journalRebuildRequired()) {
+			executorService.submit(cleanupCallable);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Moves the entry for {@code from} to {@code to} by renaming its files, so
+	 * entries can be rekeyed without copying their values. Entries actively
+	 * being edited cannot be renamed, and an existing entry for {@code to} is
+	 * never replaced.
+	 *
+	 * @return true if the entry was renamed.
+	 */
+	public synchronized boolean rename(String from, String to) throws IOException {
+		checkNotClosed();
+		validateKey(from);
+		validateKey(to);
+		Entry entry = lruEntries.get(from);
+		if (entry == null || !entry.readable || entry.currentEditor != null || lruEntries.containsKey(to)) {
+			return false;
+		}
+
+		Entry renamed = new Entry(to);
+		for (int i = 0; i < valueCount; i++) {
+			if (!entry.getCleanFile(i).renameTo(renamed.getCleanFile(i))) {
+				// put back what was already moved
+				for (int j = 0; j < i; j++) {
+					renamed.getCleanFile(j).renameTo(entry.getCleanFile(j));
+				}
+				return false;
+			}
+			renamed.lengths[i] = entry.lengths[i];
+		}
+		renamed.readable = true;
+		renamed.sequenceNumber = nextSequenceNumber++;
+
+		redundantOpCount++;
+		journalWriter.writeRemove(from);
+		journalWriter.writeClean(renamed);
+		lruEntries.remove(from);
+		lruEntries.put(to, renamed);
+		accessOrder.remove(from);
+		touch(renamed);
 
 		if (journalRebuildRequired()) {
 			executorService.submit(cleanupCallable);
@@ -680,6 +1035,7 @@ public final class LruDiskCache implements Closeable {
 	public synchronized void flush() throws IOException {
 		checkNotClosed();
 		trimToSize();
+		writePendingReads();
 		journalWriter.flush();
 	}
 
@@ -696,19 +1052,48 @@ public final class LruDiskCache implements Closeable {
 			}
 		}
 		trimToSize();
+		writePendingReads();
 		journalWriter.close();
 		journalWriter = null;
 	}
 
 	private void trimToSize() throws IOException { // 限制 大小 在 关闭 函数 close 和
 													// flush 里面都 要调用
-		while (size > maxSize) { // 实际 总大小 比 设置的 要大
-		// Map.Entry<String, Entry> toEvict = lruEntries.eldest();
-			final Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
-			remove(toEvict.getKey()); // 做删除操作
+		if (size <= maxSize) {
+			return;
+		}
+		// 按最近访问时间从早到晚移除，上次移动后被读取过或正在编辑的条目移到末尾，每个条目最多移动一次
+		int moves = accessOrder.size();
+		while (size > maxSize && !accessOrder.isEmpty()) {
+			Entry eldest = accessOrder.values().iterator().next();
+			long lastAccess = eldest.lastAccess;
+			if ((lastAccess != eldest.movedAccess || eldest.currentEditor != null) && moves-- > 0) {
+				eldest.movedAccess = lastAccess;
+				accessOrder.get(eldest.key);
+				continue;
+			}
+			long bytes = eldest.totalLength();
+			if (!remove(eldest.key)) { // 做删除操作
+				break; // only entries being edited are left
+			}
+			LoaderEventListener listener = eventListener;
+			if (listener != null) {
+				listener.onDiskEviction(eldest.key, bytes);
+			}
 		}
 	}
 
+	/**
+	 * Stamps {@code entry} as just used and moves it to the most recently used
+	 * end of {@link #accessOrder}. Called with the cache lock held, or while
+	 * the journal is replayed before the cache is shared.
+	 */
+	private void touch(Entry entry) {
+		entry.lastAccess = accessCounter.incrementAndGet();
+		entry.movedAccess = entry.lastAccess;
+		accessOrder.put(entry.key, entry);
+	}
+
 	/**
 	 * Closes the cache and deletes all of its stored values. This will delete
 	 * all files in the cache directory including files that weren't created by
@@ -723,12 +1108,98 @@ public final class LruDiskCache implements Closeable {
 		if (key.contains(" ") || key.contains("\n") || key.contains("\r")) {
 			throw new IllegalArgumentException("keys must not contain spaces or newlines: \"" + key + "\"");
 		}
+		if (binaryJournal && !isHexKey(key)) {
+			throw new IllegalArgumentException("binary journal keys must be 32 lowercase hex characters: \"" + key + "\"");
+		}
+	}
+
+	private static boolean isHexKey(String key) {
+		if (key.length() != BINARY_KEY_LENGTH * 2) {
+			return false;
+		}
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void keyToBytes(String key, byte[] dest, int offset) throws IOException {
+		if (!isHexKey(key)) {
+			throw new IOException("key cannot be written to a binary journal: " + key);
+		}
+		for (int i = 0; i < BINARY_KEY_LENGTH; i++) {
+			int high = Character.digit(key.charAt(2 * i), 16);
+			int low = Character.digit(key.charAt(2 * i + 1), 16);
+			dest[offset + i] = (byte) ((high << 4) | low);
+		}
+	}
+
+	private static String bytesToKey(byte[] src, int offset) {
+		char[] chars = new char[BINARY_KEY_LENGTH * 2];
+		for (int i = 0; i < BINARY_KEY_LENGTH; i++) {
+			int b = src[offset + i] & 0xff;
+			chars[2 * i] = HEX_DIGITS[b >>> 4];
+			chars[2 * i + 1] = HEX_DIGITS[b & 0x0f];
+		}
+		return new String(chars);
 	}
 
 	private static String inputStreamToString(InputStream in) throws IOException {
 		return readFully(new InputStreamReader(in, UTF_8));
 	}
 
+	/**
+	 * Receives progress while {@link #open} replays the journal.
+	 */
+	public interface ReplayListener {
+		/**
+		 * Called on the opening thread each time a block of the journal has
+		 * been read.
+		 */
+		void onReplayProgress(long bytesRead, long totalBytes);
+	}
+
+	/**
+	 * Reports the number of bytes read from the journal.
+	 */
+	private static final class ProgressInputStream extends FilterInputStream {
+		private final long totalBytes;
+		private final ReplayListener listener;
+		private long bytesRead;
+
+		private ProgressInputStream(InputStream in, long totalBytes, ReplayListener listener) {
+			super(in);
+			this.totalBytes = totalBytes;
+			this.listener = listener;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				onRead(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int count) throws IOException {
+			int read = super.read(buffer, offset, count);
+			if (read > 0) {
+				onRead(read);
+			}
+			return read;
+		}
+
+		private void onRead(int count) {
+			bytesRead += count;
+			listener.onReplayProgress(bytesRead, totalBytes);
+		}
+	}
+
 	/**
 	 * A snapshot of the values for an entry.
 	 */
@@ -903,6 +1374,151 @@ public final class LruDiskCache implements Closeable {
 		}
 	}
 
+	/**
+	 * Appends records to a journal file.
+	 */
+	private interface JournalWriter extends Closeable, Flushable {
+		void writeHeader() throws IOException;
+
+		void writeClean(Entry entry) throws IOException;
+
+		void writeDirty(String key) throws IOException;
+
+		void writeRemove(String key) throws IOException;
+
+		void writeRead(String key) throws IOException;
+	}
+
+	/**
+	 * Writes the line-oriented text journal.
+	 */
+	private final class TextJournalWriter implements JournalWriter {
+		private final Writer writer;
+
+		private TextJournalWriter(File file, boolean append) throws IOException {
+			this.writer = new BufferedWriter(new FileWriter(file, append), IO_BUFFER_SIZE);
+		}
+
+		@Override
+		public void writeHeader() throws IOException {
+			writer.write(MAGIC);// 写入 技术 支持
+			writer.write("\n");
+			writer.write(VERSION_1);
+			writer.write("\n");
+			writer.write(Integer.toString(appVersion));
+			writer.write("\n");
+			writer.write(Integer.toString(valueCount));
+			writer.write("\n");
+			writer.write("\n");
+		}
+
+		@Override
+		public void writeClean(Entry entry) throws IOException {
+			writer.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
+		}
+
+		@Override
+		public void writeDirty(String key) throws IOException {
+			writer.write(DIRTY + ' ' + key + '\n');
+		}
+
+		@Override
+		public void writeRemove(String key) throws IOException {
+			writer.write(REMOVE + ' ' + key + '\n');
+		}
+
+		@Override
+		public void writeRead(String key) throws IOException {
+			writer.write(READ + ' ' + key + '\n');
+		}
+
+		@Override
+		public void flush() throws IOException {
+			writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the fixed-width binary journal. Records are collected in a
+	 * buffer and written to the file together when it fills up or is flushed.
+	 */
+	private final class BinaryJournalWriter implements JournalWriter {
+		private final FileOutputStream out;
+		private final byte[] buffer;
+		private final ByteBuffer record;
+		private int position;
+
+		private BinaryJournalWriter(File file, boolean append) throws IOException {
+			this.out = new FileOutputStream(file, append);
+			int recordLength = binaryRecordLength();
+			this.buffer = new byte[Math.max(recordLength, IO_BUFFER_SIZE / recordLength * recordLength)];
+			this.record = ByteBuffer.wrap(buffer);
+		}
+
+		@Override
+		public void writeHeader() throws IOException {
+			ByteBuffer header = ByteBuffer.allocate(16);
+			header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION_1).putInt(appVersion).putInt(valueCount);
+			flush();
+			out.write(header.array());
+		}
+
+		@Override
+		public void writeClean(Entry entry) throws IOException {
+			writeRecord(OP_CLEAN, entry.key, entry.lengths);
+		}
+
+		@Override
+		public void writeDirty(String key) throws IOException {
+			writeRecord(OP_DIRTY, key, null);
+		}
+
+		@Override
+		public void writeRemove(String key) throws IOException {
+			writeRecord(OP_REMOVE, key, null);
+		}
+
+		@Override
+		public void writeRead(String key) throws IOException {
+			writeRecord(OP_READ, key, null);
+		}
+
+		private void writeRecord(byte op, String key, long[] lengths) throws IOException {
+			int recordLength = binaryRecordLength();
+			if (position + recordLength > buffer.length) {
+				flush();
+			}
+			buffer[position] = op;
+			keyToBytes(key, buffer, position + 1);
+			for (int i = 0; i < valueCount; i++) {
+				record.putLong(position + 1 + BINARY_KEY_LENGTH + 8 * i, lengths != null ? lengths[i] : 0);
+			}
+			position += recordLength;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (position > 0) {
+				out.write(buffer, 0, position);
+				position = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				out.close();
+			}
+		}
+	}
+
 	private final class Entry {
 		private final String key;
 
@@ -910,16 +1526,37 @@ public final class LruDiskCache implements Closeable {
 		private final long[] lengths;
 
 		/** True if this entry has ever been published */
-		private boolean readable;
+		private volatile boolean readable;
 
 		/** The ongoing edit or null if this entry is not being edited. */
-		private Editor currentEditor;
+		private volatile Editor currentEditor;
 
 		/**
 		 * The sequence number of the most recently committed edit to this
 		 * entry.
 		 */
-		private long sequenceNumber;
+		private volatile long sequenceNumber;
+
+		/**
+		 * Seqlock guarding the clean files: odd while a commit is renaming
+		 * them, even otherwise. Only changed while holding the cache lock.
+		 */
+		private volatile long publishCount;
+
+		/**
+		 * Callbacks registered by {@link #runAfterEdit} for the ongoing edit,
+		 * guarded by the cache lock; null if there are none.
+		 */
+		private List<Runnable> editCallbacks;
+
+		/** Access stamp of the most recent read or write of this entry. */
+		private volatile long lastAccess;
+
+		/**
+		 * Value of {@link #lastAccess} when the entry was last moved in
+		 * {@link #accessOrder}, guarded by the cache lock.
+		 */
+		private long movedAccess;
 
 		private Entry(String key) {
 			this.key = key;
@@ -959,8 +1596,15 @@ public final class LruDiskCache implements Closeable {
 			return new File(directory, key + "." + i);
 		}
 
+		public long totalLength() {
+			long total = 0;
+			for (long length : lengths) {
+				total += length;
+			}
+			return total;
+		}
+
 		public File getDirtyFile(int i) {
-			Log.d("------", "要被压缩的 图片 路径：" + directory + "/" + key + "." + i + ".tmp");
 			return new File(directory, key + "." + i + ".tmp"); // 在目录下，新建一个 图片
 																// 缓存 的路径，key
 																// 是图片的名字
@@ -13,7 +13,7 @@ import android.graphics.Bitmap;
  * @author Aaron
  * 
  */
-public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
+public class LruMemoryCache implements PooledMemoryCache {
 
 	/**
 	 * LRU缓存
@@ -23,22 +23,37 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 	/**
 	 * 最大缓存空间
 	 */
-	private final int maxSize;
+	private volatile int maxSize;
 
 	/**
 	 * 当前缓存空间
 	 */
 	private int currentSize;
 
+	/**
+	 * 被移除的Bitmap放入复用池，可以为null
+	 */
+	private volatile BitmapPoolAware bitmapPool;
+
 	public LruMemoryCache(int maxSize) {
+		this(maxSize, null);
+	}
+
+	public LruMemoryCache(int maxSize, BitmapPoolAware bitmapPool) {
 		if (maxSize <= 0) {
 			throw new IllegalArgumentException("maxSize <= 0");
 		}
 		this.maxSize = maxSize;
+		this.bitmapPool = bitmapPool;
 		// 初始化队列按照访问顺序从少到多排列
 		this.cache = new LinkedHashMap<String, Bitmap>(0, 0.75f, true);
 	}
 
+	@Override
+	public void setBitmapPool(BitmapPoolAware bitmapPool) {
+		this.bitmapPool = bitmapPool;
+	}
+
 	@Override
 	public boolean put(String key, Bitmap value) {
 		if (key == null || value == null) {
@@ -65,6 +80,17 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 		}
 	}
 
+	@Override
+	public boolean containsKey(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		synchronized (this) {
+			// 按访问顺序排列的LinkedHashMap只有get会调整顺序
+			return this.cache.containsKey(key);
+		}
+	}
+
 	/**
 	 * 从缓存中移除指定Key对应的Bitmap
 	 */
@@ -88,7 +114,28 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 
 	@Override
 	public Collection<String> keys() {
-		return new HashSet<String>(cache.keySet());
+		synchronized (this) {
+			return new HashSet<String>(cache.keySet());
+		}
+	}
+
+	@Override
+	public synchronized int size() {
+		return currentSize;
+	}
+
+	@Override
+	public int maxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+		trimToSize(maxSize);
 	}
 
 	/**
@@ -103,11 +150,12 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 	}
 
 	/**
-	 * 超出缓存预定值时，将最近最少使用的对象移除缓存
+	 * 超出缓存预定值时，将最近最少使用的对象移除缓存，直到占用空间不超过maxSize
 	 * 
 	 * @param maxSize
 	 */
-	private void trimToSize(int maxSize) {
+	@Override
+	public void trimToSize(int maxSize) {
 		while (true) {
 			String key;
 			Bitmap value;
@@ -115,7 +163,7 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 				if (currentSize < 0 || (cache.isEmpty() && (currentSize != 0))) {
 					throw new IllegalArgumentException("currentSize<0||(cache.isEmpty()&&(currentSize!=0))");
 				}
-				if (currentSize < maxSize || cache.isEmpty()) {
+				if (currentSize <= maxSize || cache.isEmpty()) {
 					break;
 				}
 				Map.Entry<String, Bitmap> toEvict = cache.entrySet().iterator().next();
@@ -127,6 +175,10 @@ public class LruMemoryCache implements MemoryCacheAware<String, Bitmap> {
 				cache.remove(key);
 				currentSize -= sizeOf(key, value);
 			}
+			BitmapPoolAware pool = bitmapPool;
+			if (pool != null) {
+				pool.put(value);
+			}
 		}
 	}
 
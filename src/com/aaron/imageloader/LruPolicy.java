@@ -0,0 +1,51 @@
+package com.aaron.imageloader;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Lru移除策略，移除最近最少使用的key
+ * 
+ * @author Aaron
+ * 
+ * @param <K>
+ */
+public class LruPolicy<K> implements EvictionPolicy<K> {
+
+	/**
+	 * 按照访问顺序从少到多排列
+	 */
+	private final LinkedHashMap<K, Boolean> order = new LinkedHashMap<K, Boolean>(0, 0.75f, true);
+
+	@Override
+	public void onAccess(K key) {
+		order.get(key);
+	}
+
+	@Override
+	public void onInsert(K key, int weight) {
+		order.put(key, Boolean.TRUE);
+	}
+
+	@Override
+	public void onRemove(K key) {
+		order.remove(key);
+	}
+
+	@Override
+	public K victim() {
+		Iterator<K> i = order.keySet().iterator();
+		return i.hasNext() ? i.next() : null;
+	}
+
+	@Override
+	public boolean admit(K candidate, K victim) {
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		order.clear();
+	}
+
+}
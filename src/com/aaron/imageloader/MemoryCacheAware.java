@@ -25,6 +25,13 @@ public interface MemoryCacheAware<K, V> {
 	 */
 	V get(K key);
 	
+	/**
+	 * 是否包含key，不计入访问记录，不影响移除顺序和频率统计
+	 * @param key
+	 * @return
+	 */
+	boolean containsKey(K key);
+	
 	/**
 	 * 移除
 	 * @param key
@@ -43,4 +50,30 @@ public interface MemoryCacheAware<K, V> {
 	 */
 	Collection<K> keys();
 	
+	/**
+	 * 当前占用的缓存空间
+	 * @return
+	 */
+	int size();
+	
+	/**
+	 * 最大缓存空间
+	 * @return
+	 */
+	int maxSize();
+	
+	/**
+	 * 调整最大缓存空间，缩小时立即移除图片直到占用空间不超过maxSize（size() <= maxSize）
+	 * @param maxSize
+	 */
+	void setMaxSize(int maxSize);
+	
+	/**
+	 * 移除最近最少使用的图片直到占用空间不超过size，最大缓存空间不变。
+	 * 所有实现都按同一定义：返回后size() <= size（所有图片都被移除仍超出时除外），
+	 * 占用空间恰好等于size时不再移除
+	 * @param size
+	 */
+	void trimToSize(int size);
+	
 }
@@ -0,0 +1,34 @@
+package com.aaron.imageloader;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+/**
+ * 接收系统的内存回收通知，转交给{@link ImageLoader#trimMemory(int)}。API 14及以上在build时自动注册
+ * 
+ * @author Aaron
+ * 
+ */
+class MemoryTrimCallbacks implements ComponentCallbacks2 {
+
+	private final ImageLoader imageLoader;
+
+	MemoryTrimCallbacks(ImageLoader imageLoader) {
+		this.imageLoader = imageLoader;
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		imageLoader.trimMemory(level);
+	}
+
+	@Override
+	public void onLowMemory() {
+		imageLoader.trimMemory(TRIM_MEMORY_COMPLETE);
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+	}
+
+}
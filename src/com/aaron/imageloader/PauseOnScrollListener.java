@@ -0,0 +1,93 @@
+package com.aaron.imageloader;
+
+import android.widget.AbsListView;
+import android.widget.AbsListView.OnScrollListener;
+
+/**
+ * 列表滑动时暂停加载，停止后恢复，例如listView.setOnScrollListener(new PauseOnScrollListener(imageLoader,
+ * false, true))
+ * 
+ * @author Aaron
+ *
+ */
+public class PauseOnScrollListener implements OnScrollListener {
+
+	private final ImageLoader imageLoader;
+
+	/**
+	 * 手指拖动时是否暂停
+	 */
+	private final boolean pauseOnScroll;
+
+	/**
+	 * 快速滑动时是否暂停
+	 */
+	private final boolean pauseOnFling;
+
+	/**
+	 * 使用者自己的监听器，没有时为null
+	 */
+	private final OnScrollListener externalListener;
+
+	/**
+	 * @param imageLoader
+	 * @param pauseOnScroll
+	 *            手指拖动时是否暂停
+	 * @param pauseOnFling
+	 *            快速滑动时是否暂停
+	 */
+	public PauseOnScrollListener(ImageLoader imageLoader, boolean pauseOnScroll, boolean pauseOnFling) {
+		this(imageLoader, pauseOnScroll, pauseOnFling, null);
+	}
+
+	/**
+	 * @param imageLoader
+	 * @param pauseOnScroll
+	 *            手指拖动时是否暂停
+	 * @param pauseOnFling
+	 *            快速滑动时是否暂停
+	 * @param externalListener
+	 *            滑动事件同时转发给该监听器
+	 */
+	public PauseOnScrollListener(ImageLoader imageLoader, boolean pauseOnScroll, boolean pauseOnFling,
+			OnScrollListener externalListener) {
+		this.imageLoader = imageLoader;
+		this.pauseOnScroll = pauseOnScroll;
+		this.pauseOnFling = pauseOnFling;
+		this.externalListener = externalListener;
+	}
+
+	@Override
+	public void onScrollStateChanged(AbsListView view, int scrollState) {
+		switch (scrollState) {
+		case OnScrollListener.SCROLL_STATE_IDLE:
+			imageLoader.resume();
+			break;
+		case OnScrollListener.SCROLL_STATE_TOUCH_SCROLL:
+			if (pauseOnScroll) {
+				imageLoader.pause();
+			} else {
+				imageLoader.resume();
+			}
+			break;
+		case OnScrollListener.SCROLL_STATE_FLING:
+			if (pauseOnFling) {
+				imageLoader.pause();
+			}
+			break;
+		default:
+			break;
+		}
+		if (externalListener != null) {
+			externalListener.onScrollStateChanged(view, scrollState);
+		}
+	}
+
+	@Override
+	public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+		if (externalListener != null) {
+			externalListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+		}
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.aaron.imageloader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import android.graphics.Bitmap;
+
+/**
+ * 使用可替换的移除策略的内存缓存，例如{@link SegmentedLruPolicy}、{@link TinyLfuPolicy}
+ * 
+ * @author Aaron
+ * 
+ */
+public class PolicyMemoryCache implements PooledMemoryCache {
+
+	private final HashMap<String, Bitmap> cache = new HashMap<String, Bitmap>();
+
+	/**
+	 * 移除策略
+	 */
+	private final EvictionPolicy<String> policy;
+
+	/**
+	 * 最大缓存空间
+	 */
+	private int maxSize;
+
+	/**
+	 * 当前缓存空间
+	 */
+	private int currentSize;
+
+	/**
+	 * 被移除的Bitmap放入复用池，可以为null
+	 */
+	private volatile BitmapPoolAware bitmapPool;
+
+	public PolicyMemoryCache(int maxSize, EvictionPolicy<String> policy) {
+		this(maxSize, policy, null);
+	}
+
+	public PolicyMemoryCache(int maxSize, EvictionPolicy<String> policy, BitmapPoolAware bitmapPool) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		if (policy == null) {
+			throw new NullPointerException("policy == null");
+		}
+		this.maxSize = maxSize;
+		this.policy = policy;
+		this.bitmapPool = bitmapPool;
+	}
+
+	/**
+	 * 创建使用TinyLfu准入和分段Lru移除的内存缓存
+	 * 
+	 * @param maxSize
+	 * @param expectedCount
+	 *            预计缓存中的图片数量
+	 * @param bitmapPool
+	 * @return
+	 */
+	public static PolicyMemoryCache newTinyLfuCache(int maxSize, int expectedCount, BitmapPoolAware bitmapPool) {
+		EvictionPolicy<String> policy = new TinyLfuPolicy<String>(new SegmentedLruPolicy<String>(maxSize / 5 * 4),
+				expectedCount);
+		return new PolicyMemoryCache(maxSize, policy, bitmapPool);
+	}
+
+	@Override
+	public void setBitmapPool(BitmapPoolAware bitmapPool) {
+		this.bitmapPool = bitmapPool;
+	}
+
+	/**
+	 * 空间不足时由移除策略决定移除哪些图片，移除策略不允许放入时返回false
+	 */
+	@Override
+	public boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+		int size = sizeOf(key, value);
+		List<Bitmap> evicted = null;
+		synchronized (this) {
+			if (size > maxSize) {
+				return false;
+			}
+			Bitmap previous = cache.remove(key);
+			if (previous != null) {
+				currentSize -= sizeOf(key, previous);
+				policy.onRemove(key);
+			}
+			// 替换已有的图片时不需要移除策略允许
+			boolean admitted = previous != null;
+			while (currentSize + size > maxSize) {
+				String victim = policy.victim();
+				if (victim == null) {
+					break;
+				}
+				if (!admitted) {
+					if (!policy.admit(key, victim)) {
+						return false;
+					}
+					admitted = true;
+				}
+				Bitmap removed = cache.remove(victim);
+				policy.onRemove(victim);
+				if (removed != null) {
+					currentSize -= sizeOf(victim, removed);
+					if (evicted == null) {
+						evicted = new ArrayList<Bitmap>();
+					}
+					evicted.add(removed);
+				}
+			}
+			cache.put(key, value);
+			currentSize += size;
+			policy.onInsert(key, size);
+		}
+		BitmapPoolAware pool = bitmapPool;
+		if (evicted != null && pool != null) {
+			for (Bitmap bitmap : evicted) {
+				pool.put(bitmap);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		synchronized (this) {
+			policy.onAccess(key);
+			return cache.get(key);
+		}
+	}
+
+	@Override
+	public boolean containsKey(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		synchronized (this) {
+			return cache.containsKey(key);
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+		synchronized (this) {
+			Bitmap previous = cache.remove(key);
+			if (previous != null) {
+				currentSize -= sizeOf(key, previous);
+				policy.onRemove(key);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		cache.clear();
+		policy.clear();
+		currentSize = 0;
+	}
+
+	@Override
+	public synchronized Collection<String> keys() {
+		return new HashSet<String>(cache.keySet());
+	}
+
+	@Override
+	public synchronized int size() {
+		return currentSize;
+	}
+
+	@Override
+	public synchronized int maxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		synchronized (this) {
+			this.maxSize = maxSize;
+		}
+		trimToSize(maxSize);
+	}
+
+	/**
+	 * 按移除策略移除，直到缓存空间不超过size
+	 */
+	@Override
+	public void trimToSize(int size) {
+		List<Bitmap> evicted = new ArrayList<Bitmap>();
+		synchronized (this) {
+			while (currentSize > size) {
+				String victim = policy.victim();
+				if (victim == null) {
+					break;
+				}
+				Bitmap removed = cache.remove(victim);
+				policy.onRemove(victim);
+				if (removed != null) {
+					currentSize -= sizeOf(victim, removed);
+					evicted.add(removed);
+				}
+			}
+		}
+		BitmapPoolAware pool = bitmapPool;
+		if (pool != null) {
+			for (Bitmap bitmap : evicted) {
+				pool.put(bitmap);
+			}
+		}
+	}
+
+	/**
+	 * 返回图片大小
+	 * 
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	private int sizeOf(String key, Bitmap value) {
+		return value.getRowBytes() * value.getHeight();
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.aaron.imageloader;
+
+import android.graphics.Bitmap;
+
+/**
+ * 把移除的Bitmap放入复用池的内存缓存
+ * 
+ * <p>
+ * 通过{@link ImageLoader#setMemoryCache(MemoryCacheAware)}设置时，build会把复用池替换为ImageLoader实际使用的复用池，
+ * 仍在显示或正在使用的Bitmap不会被放入，创建缓存时不需要传入复用池。移除的Bitmap需在释放缓存自身的锁之后再放入复用池
+ * 
+ * @author Aaron
+ * 
+ */
+public interface PooledMemoryCache extends MemoryCacheAware<String, Bitmap> {
+
+	/**
+	 * 设置被移除的Bitmap放入的复用池
+	 * @param bitmapPool 可以为null
+	 */
+	void setBitmapPool(BitmapPoolAware bitmapPool);
+
+}
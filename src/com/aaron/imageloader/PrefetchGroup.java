@@ -0,0 +1,78 @@
+package com.aaron.imageloader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次{@link ImageLoader#prefetch(java.util.Collection, ImageSize, Priority)}提交的预加载任务，可以一起取消
+ * 
+ * <p>
+ * 所有方法需在主线程调用
+ * 
+ * @author Aaron
+ *
+ */
+public final class PrefetchGroup {
+
+	/**
+	 * 尚未结束的任务
+	 */
+	private final List<BitmapWorkerTask> tasks = new ArrayList<BitmapWorkerTask>();
+
+	private boolean cancelled;
+
+	PrefetchGroup() {
+	}
+
+	void add(BitmapWorkerTask task) {
+		tasks.add(task);
+	}
+
+	/**
+	 * 任务结束或取消后调用
+	 * 
+	 * @param task
+	 */
+	void onTaskFinished(BitmapWorkerTask task) {
+		tasks.remove(task);
+	}
+
+	/**
+	 * 取消尚未结束的预加载，已有ImageView在等待结果的任务继续执行
+	 */
+	public void cancel() {
+		if (cancelled) {
+			return;
+		}
+		cancelled = true;
+		for (BitmapWorkerTask task : new ArrayList<BitmapWorkerTask>(tasks)) {
+			if (!task.hasImageViews()) {
+				task.cancel();
+			}
+		}
+		tasks.clear();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * 返回尚未结束的任务数量
+	 * 
+	 * @return
+	 */
+	public int getPendingCount() {
+		return tasks.size();
+	}
+
+	/**
+	 * 是否所有任务都已结束
+	 * 
+	 * @return
+	 */
+	public boolean isDone() {
+		return tasks.isEmpty();
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.aaron.imageloader;
+
+/**
+ * 加载任务优先级，优先级高的任务先执行，相同优先级后提交的任务先执行
+ * 
+ * @author Aaron
+ * 
+ */
+public enum Priority {
+
+	/**
+	 * 低，用于预加载等不急于显示的任务
+	 */
+	LOW,
+
+	/**
+	 * 普通，默认优先级
+	 */
+	NORMAL,
+
+	/**
+	 * 高，用于当前可见的图片
+	 */
+	HIGH,
+
+	/**
+	 * 立即，在所有等待中的任务之前执行
+	 */
+	IMMEDIATE
+
+}
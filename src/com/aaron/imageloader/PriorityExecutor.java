@@ -0,0 +1,225 @@
+package com.aaron.imageloader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按优先级执行任务的线程池，优先级高的任务先执行，相同优先级后提交的任务先执行
+ * 
+ * <p>
+ * 等待队列无界，线程数固定为poolSize。submit、invokeAll等继承的方法提交的任务按普通优先级排队
+ * 
+ * @author Aaron
+ * 
+ */
+public class PriorityExecutor extends ThreadPoolExecutor {
+
+	/**
+	 * 任务提交序号，用于相同优先级时后进先出
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * 线程池名称，用于线程命名
+	 */
+	private final String name;
+
+	public PriorityExecutor(int poolSize) {
+		this("imageloader", poolSize);
+	}
+
+	public PriorityExecutor(final String name, int poolSize) {
+		super(poolSize, poolSize, 10, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		});
+		this.name = name;
+	}
+
+	/**
+	 * 以普通优先级执行任务
+	 */
+	@Override
+	public void execute(Runnable command) {
+		execute(command, Priority.NORMAL);
+	}
+
+	/**
+	 * 以指定优先级执行任务
+	 * 
+	 * @param command
+	 * @param priority
+	 */
+	public void execute(Runnable command, Priority priority) {
+		if (command == null) {
+			throw new NullPointerException("command == null");
+		}
+		if (command instanceof PrioritizedTask) {
+			super.execute(command);
+		} else {
+			super.execute(new PriorityRunnable(command, priority, sequence.incrementAndGet()));
+		}
+	}
+
+	/**
+	 * 提高等待中任务的优先级，从队列中移除后按新的优先级重新排队，任务已开始执行、不在队列中或优先级不低于priority时不做处理
+	 * 
+	 * @param command
+	 *            提交时的任务
+	 * @param priority
+	 * @return 是否已重新排队
+	 */
+	public boolean reprioritize(Runnable command, Priority priority) {
+		for (Runnable queued : getQueue()) {
+			if (!(queued instanceof PriorityRunnable)) {
+				continue;
+			}
+			PriorityRunnable task = (PriorityRunnable) queued;
+			if (task.command == command) {
+				if (task.priority.ordinal() >= priority.ordinal() || !remove(task)) {
+					// 已被线程取走
+					return false;
+				}
+				execute(command, priority);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * submit等方法创建的任务直接按普通优先级排队，不再包装，队列中的Future可以被purge移除
+	 */
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		return new PriorityFutureTask<T>(runnable, value, Priority.NORMAL, sequence.incrementAndGet());
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		return new PriorityFutureTask<T>(callable, Priority.NORMAL, sequence.incrementAndGet());
+	}
+
+	/**
+	 * 返回等待执行的任务数量
+	 * 
+	 * @return
+	 */
+	public int getQueueSize() {
+		return getQueue().size();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return "PriorityExecutor[name=" + name + ",poolSize=" + getCorePoolSize() + ",active=" + getActiveCount()
+				+ ",queued=" + getQueueSize() + ",completed=" + getCompletedTaskCount() + "]";
+	}
+
+	/**
+	 * 队列中的任务，优先级高的先执行，相同优先级后提交的先执行
+	 */
+	private interface PrioritizedTask extends Runnable, Comparable<PrioritizedTask> {
+
+		Priority getPriority();
+
+		long getSequence();
+	}
+
+	private static int compare(PrioritizedTask lhs, PrioritizedTask rhs) {
+		if (lhs.getPriority() != rhs.getPriority()) {
+			return rhs.getPriority().ordinal() - lhs.getPriority().ordinal();
+		}
+		// 后提交的任务先执行
+		return lhs.getSequence() > rhs.getSequence() ? -1 : (lhs.getSequence() < rhs.getSequence() ? 1 : 0);
+	}
+
+	/**
+	 * 带优先级的任务
+	 */
+	private static class PriorityRunnable implements PrioritizedTask {
+
+		private final Runnable command;
+		private final Priority priority;
+		private final long sequence;
+
+		private PriorityRunnable(Runnable command, Priority priority, long sequence) {
+			this.command = command;
+			this.priority = priority != null ? priority : Priority.NORMAL;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public void run() {
+			command.run();
+		}
+
+		@Override
+		public Priority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public long getSequence() {
+			return sequence;
+		}
+
+		@Override
+		public int compareTo(PrioritizedTask another) {
+			return compare(this, another);
+		}
+	}
+
+	/**
+	 * submit等方法提交的带优先级的任务
+	 */
+	private static class PriorityFutureTask<T> extends FutureTask<T> implements PrioritizedTask {
+
+		private final Priority priority;
+		private final long sequence;
+
+		private PriorityFutureTask(Runnable runnable, T value, Priority priority, long sequence) {
+			super(runnable, value);
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		private PriorityFutureTask(Callable<T> callable, Priority priority, long sequence) {
+			super(callable);
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public Priority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public long getSequence() {
+			return sequence;
+		}
+
+		@Override
+		public int compareTo(PrioritizedTask another) {
+			return compare(this, another);
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.aaron.imageloader;
+
+/**
+ * 解码时图片与目标尺寸的关系，由ImageView的ScaleType决定
+ * 
+ * @author Aaron
+ * 
+ */
+public enum ScaleMode {
+
+	/**
+	 * 图片完整放入目标尺寸，宽高都不超过目标尺寸，对应FIT_CENTER、CENTER_INSIDE等
+	 */
+	FIT,
+
+	/**
+	 * 图片铺满目标尺寸，宽高都不小于目标尺寸，对应CENTER_CROP、FIT_XY等
+	 */
+	FILL
+
+}
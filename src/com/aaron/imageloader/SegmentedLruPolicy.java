@@ -0,0 +1,112 @@
+package com.aaron.imageloader;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 分段Lru移除策略。新放入的key进入试用段，在试用段中再次命中后进入保护段，保护段超出容量时最久未使用的key退回试用段。
+ * 优先移除试用段中的key，只访问一次的key不会挤掉经常使用的key
+ * 
+ * @author Aaron
+ * 
+ * @param <K>
+ */
+public class SegmentedLruPolicy<K> implements EvictionPolicy<K> {
+
+	/**
+	 * 试用段，值为占用的缓存空间
+	 */
+	private final LinkedHashMap<K, Integer> probation = new LinkedHashMap<K, Integer>(0, 0.75f, true);
+
+	/**
+	 * 保护段，值为占用的缓存空间
+	 */
+	private final LinkedHashMap<K, Integer> protect = new LinkedHashMap<K, Integer>(0, 0.75f, true);
+
+	/**
+	 * 保护段最大容量
+	 */
+	private final int maxProtectedWeight;
+
+	/**
+	 * 保护段当前容量
+	 */
+	private int protectedWeight;
+
+	/**
+	 * @param maxProtectedWeight
+	 *            保护段最大容量，通常为缓存预定值的80%
+	 */
+	public SegmentedLruPolicy(int maxProtectedWeight) {
+		if (maxProtectedWeight < 0) {
+			throw new IllegalArgumentException("maxProtectedWeight < 0");
+		}
+		this.maxProtectedWeight = maxProtectedWeight;
+	}
+
+	@Override
+	public void onAccess(K key) {
+		if (protect.get(key) != null) {
+			return;
+		}
+		Integer weight = probation.remove(key);
+		if (weight == null) {
+			return;
+		}
+		// 试用段中再次命中，进入保护段
+		protect.put(key, weight);
+		protectedWeight += weight;
+		while (protectedWeight > maxProtectedWeight && !protect.isEmpty()) {
+			Iterator<K> i = protect.keySet().iterator();
+			K demoted = i.next();
+			int demotedWeight = protect.remove(demoted);
+			protectedWeight -= demotedWeight;
+			probation.put(demoted, demotedWeight);
+		}
+	}
+
+	@Override
+	public void onInsert(K key, int weight) {
+		Integer previous = protect.get(key);
+		if (previous != null) {
+			protectedWeight += weight - previous;
+			protect.put(key, weight);
+		} else {
+			probation.put(key, weight);
+		}
+	}
+
+	@Override
+	public void onRemove(K key) {
+		Integer weight = protect.remove(key);
+		if (weight != null) {
+			protectedWeight -= weight;
+		} else {
+			probation.remove(key);
+		}
+	}
+
+	@Override
+	public K victim() {
+		if (!probation.isEmpty()) {
+			return probation.keySet().iterator().next();
+		}
+		if (!protect.isEmpty()) {
+			return protect.keySet().iterator().next();
+		}
+		return null;
+	}
+
+	@Override
+	public boolean admit(K candidate, K victim) {
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		probation.clear();
+		protect.clear();
+		protectedWeight = 0;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.aaron.imageloader;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在事件计数的基础上记录下载字节数和下载、解码耗时分布，由{@link ImageLoader#setStatsEnabled(boolean)}开启
+ * 
+ * @author Aaron
+ * 
+ */
+class StatsRecorder extends CountingEventListener {
+
+	private final AtomicLong bytesDownloaded = new AtomicLong();
+	private final LatencyHistogram downloadLatency = new LatencyHistogram();
+	private final LatencyHistogram decodeLatency = new LatencyHistogram();
+
+	@Override
+	public void onDownload(String url, long bytes, long millis, boolean success) {
+		super.onDownload(url, bytes, millis, success);
+		bytesDownloaded.addAndGet(bytes);
+		if (success) {
+			downloadLatency.record(millis);
+		}
+	}
+
+	@Override
+	public void onDecode(String url, int width, int height, long millis) {
+		super.onDecode(url, width, height, millis);
+		decodeLatency.record(millis);
+	}
+
+	long getBytesDownloaded() {
+		return bytesDownloaded.get();
+	}
+
+	LatencyHistogram getDownloadLatency() {
+		return downloadLatency;
+	}
+
+	LatencyHistogram getDecodeLatency() {
+		return decodeLatency;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		bytesDownloaded.set(0);
+		downloadLatency.reset();
+		decodeLatency.reset();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.aaron.imageloader;
+
+/**
+ * TinyLfu准入策略，包装另一个移除策略。空间不足时，只有新key的估算访问频率高于将被移除的key时才允许放入，
+ * 避免只访问一次的图片挤掉经常使用的图片
+ * 
+ * @author Aaron
+ * 
+ * @param <K>
+ */
+public class TinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+	/**
+	 * 决定移除哪个key的策略
+	 */
+	private final EvictionPolicy<K> policy;
+
+	private final FrequencySketch sketch;
+
+	/**
+	 * @param policy
+	 *            决定移除哪个key的策略，通常为{@link SegmentedLruPolicy}
+	 * @param expectedSize
+	 *            预计缓存中的key数量
+	 */
+	public TinyLfuPolicy(EvictionPolicy<K> policy, int expectedSize) {
+		if (policy == null) {
+			throw new NullPointerException("policy == null");
+		}
+		this.policy = policy;
+		this.sketch = new FrequencySketch(expectedSize);
+	}
+
+	@Override
+	public void onAccess(K key) {
+		sketch.increment(key);
+		policy.onAccess(key);
+	}
+
+	@Override
+	public void onInsert(K key, int weight) {
+		policy.onInsert(key, weight);
+	}
+
+	@Override
+	public void onRemove(K key) {
+		policy.onRemove(key);
+	}
+
+	@Override
+	public K victim() {
+		return policy.victim();
+	}
+
+	@Override
+	public boolean admit(K candidate, K victim) {
+		if (!policy.admit(candidate, victim)) {
+			return false;
+		}
+		return sketch.frequency(candidate) > sketch.frequency(victim);
+	}
+
+	@Override
+	public void clear() {
+		sketch.clear();
+		policy.clear();
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.aaron.imageloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * 使用{@link HttpURLConnection}下载图片
+ *
+ * <p>
+ * 不调用disconnect，响应读取到末尾并关闭后连接回到keep-alive连接池，同一主机的后续下载复用连接
+ *
+ * @author Aaron
+ *
+ */
+public class UrlConnectionDownloader implements Downloader {
+
+	/**
+	 * 默认连接超时，以毫秒为单位
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT = 15 * 1000;
+
+	/**
+	 * 默认读取超时，以毫秒为单位
+	 */
+	public static final int DEFAULT_READ_TIMEOUT = 20 * 1000;
+
+	/**
+	 * 丢弃错误响应时每次读取的块大小
+	 */
+	private static final int DRAIN_BUFFER_SIZE = 4 * 1024;
+
+	private final int connectTimeout;
+
+	private final int readTimeout;
+
+	public UrlConnectionDownloader() {
+		this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+
+	/**
+	 * @param connectTimeout 连接超时，以毫秒为单位
+	 * @param readTimeout 读取超时，以毫秒为单位
+	 */
+	public UrlConnectionDownloader(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	@Override
+	public Response open(String imageUrl, CacheHeaders cached) throws IOException {
+		HttpURLConnection connection = openConnection(imageUrl);
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		if (cached != null) {
+			if (cached.getEtag() != null) {
+				connection.setRequestProperty("If-None-Match", cached.getEtag());
+			}
+			if (cached.getLastModified() != null) {
+				connection.setRequestProperty("If-Modified-Since", cached.getLastModified());
+			}
+		}
+		int code = connection.getResponseCode();
+		CacheHeaders headers = CacheHeaders.fromResponse(connection.getHeaderField("ETag"),
+				connection.getHeaderField("Last-Modified"), connection.getHeaderField("Cache-Control"),
+				connection.getExpiration(), connection.getDate(), System.currentTimeMillis());
+		if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			drain(connection.getInputStream());
+			return new Response(null, true, headers);
+		}
+		if (code != HttpURLConnection.HTTP_OK) {
+			// 读完错误响应，连接仍可复用
+			drain(connection.getErrorStream());
+			throw new IOException("HTTP " + code + " " + connection.getResponseMessage() + ": " + imageUrl);
+		}
+		return new Response(connection.getInputStream(), false, headers);
+	}
+
+	/**
+	 * 建立连接，子类可以在此设置代理、请求头等
+	 *
+	 * @param imageUrl
+	 * @return
+	 * @throws IOException
+	 */
+	protected HttpURLConnection openConnection(String imageUrl) throws IOException {
+		return (HttpURLConnection) new URL(imageUrl).openConnection();
+	}
+
+	/**
+	 * 读取并关闭不需要的响应数据
+	 *
+	 * @param in
+	 */
+	private static void drain(InputStream in) {
+		if (in == null) {
+			return;
+		}
+		try {
+			byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+			while (in.read(buffer) != -1) {
+				// 丢弃
+			}
+		} catch (IOException e) {
+			// 连接不能复用时由HttpURLConnection关闭
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// 忽略
+			}
+		}
+	}
+
+}
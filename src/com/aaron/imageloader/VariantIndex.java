@@ -0,0 +1,129 @@
+package com.aaron.imageloader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 记录内存缓存中每个图片地址已有的尺寸，用于在没有目标尺寸的缓存时找到更大的缓存缩小使用
+ * 
+ * <p>
+ * 内存缓存移除图片时不会通知这里，查找到的key需要再到内存缓存中确认，不存在时调用{@link #remove(String, String)}
+ * 
+ * @author Aaron
+ * 
+ */
+class VariantIndex {
+
+	/**
+	 * 图片地址到已缓存尺寸的表，按访问顺序排列
+	 */
+	private final LinkedHashMap<String, List<Variant>> variants;
+
+	/**
+	 * @param maxUrls 最多记录的图片地址数量，超出时移除最久未使用的地址
+	 */
+	VariantIndex(final int maxUrls) {
+		variants = new LinkedHashMap<String, List<Variant>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<Variant>> eldest) {
+				return size() > maxUrls;
+			}
+		};
+	}
+
+	/**
+	 * 记录一个尺寸
+	 * 
+	 * @param url 图片地址
+	 * @param key 内存缓存的key
+	 * @param imageSize 请求的尺寸
+	 * @param configPolicy 请求的Bitmap格式
+	 */
+	synchronized void add(String url, String key, ImageSize imageSize, BitmapConfigPolicy configPolicy) {
+		List<Variant> list = variants.get(url);
+		if (list == null) {
+			list = new ArrayList<Variant>(2);
+			variants.put(url, list);
+		}
+		for (Variant variant : list) {
+			if (variant.key.equals(key)) {
+				return;
+			}
+		}
+		list.add(new Variant(key, imageSize.width, imageSize.height, imageSize.scaleMode, configPolicy));
+	}
+
+	/**
+	 * 移除一个尺寸
+	 * 
+	 * @param url
+	 * @param key
+	 */
+	synchronized void remove(String url, String key) {
+		List<Variant> list = variants.get(url);
+		if (list == null) {
+			return;
+		}
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i).key.equals(key)) {
+				list.remove(i);
+				break;
+			}
+		}
+		if (list.isEmpty()) {
+			variants.remove(url);
+		}
+	}
+
+	/**
+	 * 查找宽高都不小于目标尺寸的缓存中面积最小的一个。按FIT解码的缓存可能小于铺满所需的尺寸，不用于FILL的请求；Bitmap格式的选择方式需相同
+	 * 
+	 * @param url
+	 * @param imageSize
+	 * @param configPolicy
+	 * @return 内存缓存的key，没有时返回null
+	 */
+	synchronized String findLarger(String url, ImageSize imageSize, BitmapConfigPolicy configPolicy) {
+		int width = imageSize.width;
+		int height = imageSize.height;
+		List<Variant> list = variants.get(url);
+		if (list == null) {
+			return null;
+		}
+		Variant best = null;
+		for (Variant variant : list) {
+			if (variant.width >= width && variant.height >= height
+					&& (variant.scaleMode == ScaleMode.FILL || imageSize.scaleMode == ScaleMode.FIT)
+					&& variant.configPolicy == configPolicy
+					&& (best == null || (long) variant.width * variant.height < (long) best.width * best.height)) {
+				best = variant;
+			}
+		}
+		return best != null ? best.key : null;
+	}
+
+	synchronized void clear() {
+		variants.clear();
+	}
+
+	private static class Variant {
+		final String key;
+		final int width;
+		final int height;
+		final ScaleMode scaleMode;
+		final BitmapConfigPolicy configPolicy;
+
+		Variant(String key, int width, int height, ScaleMode scaleMode, BitmapConfigPolicy configPolicy) {
+			this.key = key;
+			this.width = width;
+			this.height = height;
+			this.scaleMode = scaleMode;
+			this.configPolicy = configPolicy;
+		}
+	}
+
+}
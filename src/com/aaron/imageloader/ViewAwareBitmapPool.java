@@ -0,0 +1,113 @@
+package com.aaron.imageloader;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+
+/**
+ * 记录ImageLoader设置到每个ImageView上的Bitmap，仍在ImageView上显示的Bitmap不放入复用池，避免解码时覆盖屏幕上的像素
+ *
+ * <p>
+ * ImageView被回收后记录自动移除；使用者自己修改ImageView的图片时，原Bitmap按仍在显示处理，只是不再复用。后台线程正在读取的Bitmap通过
+ * {@link #hold(Bitmap)}同样不放入复用池
+ *
+ * @author Aaron
+ *
+ */
+final class ViewAwareBitmapPool implements BitmapPoolAware {
+
+	private final BitmapPoolAware pool;
+
+	/**
+	 * ImageView当前显示的Bitmap
+	 */
+	private final Map<ImageView, Bitmap> displayed = new WeakHashMap<ImageView, Bitmap>();
+
+	/**
+	 * 后台线程正在读取的Bitmap及读取次数
+	 */
+	private final Map<Bitmap, Integer> held = new IdentityHashMap<Bitmap, Integer>();
+
+	ViewAwareBitmapPool(BitmapPoolAware pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * 记录ImageView显示的Bitmap，需在设置到ImageView时调用
+	 *
+	 * @param imageView
+	 * @param bitmap
+	 *            不是ImageLoader加载的图片时为null
+	 */
+	synchronized void bind(ImageView imageView, Bitmap bitmap) {
+		if (bitmap != null) {
+			displayed.put(imageView, bitmap);
+		} else {
+			displayed.remove(imageView);
+		}
+	}
+
+	/**
+	 * Bitmap是否仍在某个ImageView上显示
+	 *
+	 * @param bitmap
+	 * @return
+	 */
+	synchronized boolean isDisplayed(Bitmap bitmap) {
+		for (Bitmap value : displayed.values()) {
+			if (value == bitmap) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 后台线程开始读取Bitmap，与{@link #release(Bitmap)}成对调用，期间即使被内存缓存移除也不放入复用池
+	 *
+	 * @param bitmap
+	 */
+	synchronized void hold(Bitmap bitmap) {
+		Integer count = held.get(bitmap);
+		held.put(bitmap, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * 后台线程读取结束
+	 *
+	 * @param bitmap
+	 */
+	synchronized void release(Bitmap bitmap) {
+		Integer count = held.get(bitmap);
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			held.put(bitmap, count - 1);
+		} else {
+			held.remove(bitmap);
+		}
+	}
+
+	@Override
+	public synchronized boolean put(Bitmap bitmap) {
+		if (held.containsKey(bitmap) || isDisplayed(bitmap)) {
+			return false;
+		}
+		return pool.put(bitmap);
+	}
+
+	@Override
+	public Bitmap get(int width, int height, Bitmap.Config config) {
+		return pool.get(width, height, config);
+	}
+
+	@Override
+	public void clear() {
+		pool.clear();
+	}
+
+}